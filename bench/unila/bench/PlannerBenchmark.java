@@ -0,0 +1,124 @@
+package unila.bench;
+
+import arc.struct.*;
+import mindustry.content.Blocks;
+import mindustry.content.Items;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import org.openjdk.jmh.annotations.*;
+import unila.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of the planning pipeline over generated copper fields
+ * Run with ./gradlew jmh, the GC profiler adds allocation rates per operation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+    @Param({"SPARSE", "BLOB", "VEIN", "CHECKERBOARD"})
+    public SyntheticMap.Shape shape;
+    
+    @Param({"100", "1000", "10000"})
+    public int tiles;
+    
+    private Item ore;
+    private Drill drill;
+    private ArrayGrid grid;
+    private final Seq<Tile> oreTiles = new Seq<>();
+    private final PatchPlanner patchPlanner = new PatchPlanner();
+    
+    private final PlanningWorkspace workspace = new PlanningWorkspace();
+    private final Seq<DrillPlacement> placements = new Seq<>();
+    private final Bitboard occupied = new Bitboard();
+    
+    // Drills planned once per trial, input of the infrastructure stages
+    private final PlanningWorkspace plannedWorkspace = new PlanningWorkspace();
+    private final Seq<DrillPlacement> planned = new Seq<>();
+    private final Bitboard plannedOccupied = new Bitboard();
+    private final Bitboard infrastructureOccupied = new Bitboard();
+    private final InfrastructurePlacer infrastructure = new InfrastructurePlacer();
+    
+    @Setup(Level.Trial)
+    public void generate() {
+        SyntheticMap.bootstrap();
+        grid = SyntheticMap.generate(shape, tiles, 0x5eedL, oreTiles);
+        
+        // Pneumatic drills are 2x2 and take water, so every infrastructure stage has work
+        ore = Items.copper;
+        drill = (Drill)Blocks.pneumaticDrill;
+        Config.maxTiles = Integer.MAX_VALUE;
+        Config.optimizerBudgetMs = 0;
+        patchPlanner.workspace.grid = grid;
+        workspace.grid = grid;
+        plannedWorkspace.grid = grid;
+        
+        workspace.coverage.build(grid, oreTiles, drill);
+        plannedWorkspace.coverage.build(grid, oreTiles, drill);
+        DrillOptimization.calculateOptimalPlacements(drill, ore, oreTiles, plannedWorkspace, planned,
+            DrillUtility.resetOccupancy(grid, plannedOccupied), 0);
+    }
+    
+    @Benchmark
+    public int floodFill() {
+        // Off the loaded world there is no patch index, so this is the flood fill from the first ore tile
+        patchPlanner.floodFill(oreTiles.first(), ore);
+        return patchPlanner.floodTiles.size;
+    }
+    
+    @Benchmark
+    public int countOre() {
+        int total = 0;
+        for (int i = 0; i < oreTiles.size; i++) {
+            total += DrillUtility.countOre(grid, oreTiles.items[i], drill, workspace);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public int oreCoverage() {
+        workspace.coverage.build(grid, oreTiles, drill);
+        return workspace.coverage.count(ore.id, oreTiles.first().x, oreTiles.first().y, drill.size);
+    }
+    
+    @Benchmark
+    public int calculateOptimalPlacements() {
+        workspace.freePlacements(placements);
+        DrillOptimization.calculateOptimalPlacements(drill, ore, oreTiles, workspace, placements,
+            DrillUtility.resetOccupancy(grid, occupied), 0);
+        return placements.size;
+    }
+    
+    @Benchmark
+    public int placeExtractors(EmptyQueue queue) {
+        return infrastructure.placeExtractors(grid, planned, drill, infrastructureOccupied);
+    }
+    
+    @Benchmark
+    public int placePowerNodes(EmptyQueue queue) {
+        return infrastructure.placePowerNodes(grid, planned, drill, infrastructureOccupied);
+    }
+    
+    @Benchmark
+    public int connectWithPipes(EmptyQueue queue) {
+        return infrastructure.connectWithPipes(grid, planned, drill, infrastructureOccupied);
+    }
+    
+    /**
+     * Infrastructure stages queue plans and mark their tiles, drop them so every call starts from the planned drills alone
+     * Kept apart so only the infrastructure benchmarks pay for a per-call setup
+     */
+    @State(Scope.Thread)
+    public static class EmptyQueue {
+        @Setup(Level.Invocation)
+        public void dropPlans(PlannerBenchmark benchmark) {
+            benchmark.grid.clearPlans();
+            benchmark.infrastructureOccupied.copyFrom(benchmark.plannedOccupied);
+        }
+    }
+}
\ No newline at end of file
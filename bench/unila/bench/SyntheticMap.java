@@ -0,0 +1,149 @@
+package unila.bench;
+
+import arc.Core;
+import arc.math.Mathf;
+import arc.math.Rand;
+import arc.struct.*;
+import arc.util.I18NBundle;
+import mindustry.Vars;
+import mindustry.content.Items;
+import mindustry.core.ContentLoader;
+import mindustry.world.Tile;
+import unila.ArrayGrid;
+import java.util.Arrays;
+
+/**
+ * Generated copper fields for the planner benchmarks
+ * Every map is a square ArrayGrid with exactly the requested number of ore tiles
+ */
+public class SyntheticMap {
+    public enum Shape {
+        /** Ore on about a quarter of the tiles, scattered at random */
+        SPARSE,
+        /** One roughly round patch with a ragged edge */
+        BLOB,
+        /** A winding vein three tiles wide */
+        VEIN,
+        /** Every other tile of a square */
+        CHECKERBOARD
+    }
+    
+    private static boolean booted;
+    
+    /**
+     * Load the base content without a window, like the dedicated server does
+     * The planner only needs the drill and item definitions, there is no world
+     */
+    public static void bootstrap() {
+        if (booted) return;
+        
+        Vars.headless = true;
+        Core.bundle = I18NBundle.createEmptyBundle();
+        Vars.content = new ContentLoader();
+        Vars.content.createBaseContent();
+        Vars.content.init();
+        booted = true;
+    }
+    
+    /**
+     * Generate a map of the given shape
+     * @param oreTiles receives the ore tiles, in row order
+     */
+    public static ArrayGrid generate(Shape shape, int count, long seed, Seq<Tile> oreTiles) {
+        Rand rand = new Rand(seed);
+        int side = Math.max(64, (int)Math.ceil(Math.sqrt(count * 4.0)) + 16);
+        boolean[] ore = new boolean[side * side];
+        
+        switch (shape) {
+            case SPARSE: sparse(ore, side, count, rand); break;
+            case BLOB: blob(ore, side, count, rand); break;
+            case VEIN: vein(ore, side, count, rand); break;
+            default: checkerboard(ore, side, count); break;
+        }
+        
+        ArrayGrid grid = new ArrayGrid(side, side);
+        oreTiles.clear();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                if (!ore[x + y * side]) continue;
+                
+                grid.setOre(x, y, Items.copper);
+                oreTiles.add(grid.tile(x, y));
+            }
+        }
+        
+        return grid;
+    }
+    
+    private static void sparse(boolean[] ore, int side, int count, Rand rand) {
+        for (int placed = 0; placed < count; ) {
+            int index = rand.random(side * side - 1);
+            if (!ore[index]) {
+                ore[index] = true;
+                placed++;
+            }
+        }
+    }
+    
+    private static void blob(boolean[] ore, int side, int count, Rand rand) {
+        // Take the tiles closest to the center, with jitter for a ragged edge
+        float center = side / 2f;
+        float[] keys = new float[side * side];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Mathf.dst(i % side, i / side, center, center) + rand.range(1.5f);
+        }
+        
+        float[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        float limit = sorted[count - 1];
+        
+        for (int i = 0, placed = 0; i < keys.length && placed < count; i++) {
+            if (keys[i] <= limit) {
+                ore[i] = true;
+                placed++;
+            }
+        }
+    }
+    
+    private static void vein(boolean[] ore, int side, int count, Rand rand) {
+        float x = side / 2f, y = side / 2f;
+        float angle = rand.random(360f);
+        int placed = 0;
+        
+        while (placed < count) {
+            // Drift the heading and turn back from the edges
+            angle += rand.range(20f);
+            x += Mathf.cosDeg(angle);
+            y += Mathf.sinDeg(angle);
+            if (x < 2 || y < 2 || x >= side - 2 || y >= side - 2) {
+                x = Mathf.clamp(x, 2, side - 3);
+                y = Mathf.clamp(y, 2, side - 3);
+                angle += 180f;
+            }
+            
+            for (int dy = -1; dy <= 1 && placed < count; dy++) {
+                for (int dx = -1; dx <= 1 && placed < count; dx++) {
+                    int index = (int)x + dx + ((int)y + dy) * side;
+                    if (!ore[index]) {
+                        ore[index] = true;
+                        placed++;
+                    }
+                }
+            }
+        }
+    }
+    
+    private static void checkerboard(boolean[] ore, int side, int count) {
+        int square = (int)Math.ceil(Math.sqrt(count * 2.0));
+        int start = (side - square) / 2;
+        
+        for (int y = start, placed = 0; y < start + square && placed < count; y++) {
+            for (int x = start; x < start + square && placed < count; x++) {
+                if (((x + y) & 1) == 0) {
+                    ore[x + y * side] = true;
+                    placed++;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
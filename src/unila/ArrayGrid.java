@@ -0,0 +1,119 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.entities.units.BuildPlan;
+import mindustry.type.Item;
+import mindustry.world.Block;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import java.util.Arrays;
+
+/**
+ * In-memory PlanGrid, needs no world, player or game state
+ * Every cell starts buildable and without ore; queued blocks are kept in plans
+ * Not thread-safe, but one grid per thread plans independently
+ */
+public class ArrayGrid implements PlanGrid {
+    private final int width, height;
+    
+    // Ore item id and its hardness per cell, -1 when there is no ore
+    private final short[] drops;
+    private final byte[] hardness;
+    private final Bitboard buildable;
+    private final Bitboard reserved;
+    // Tile handles, created the first time a position is asked for
+    private final Tile[] tiles;
+    
+    /** Blocks queued on this grid, in order */
+    public final Seq<BuildPlan> plans = new Seq<>();
+    
+    public ArrayGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.drops = new short[width * height];
+        this.hardness = new byte[width * height];
+        this.buildable = new Bitboard(width, height);
+        this.reserved = new Bitboard(width, height);
+        this.tiles = new Tile[width * height];
+        
+        Arrays.fill(drops, (short)-1);
+        buildable.setRect(0, 0, width, height);
+    }
+    
+    public void setOre(int x, int y, Item item) {
+        int index = index(x, y);
+        drops[index] = item == null ? -1 : item.id;
+        hardness[index] = item == null ? 0 : (byte)item.hardness;
+    }
+    
+    /**
+     * Unbuildable cells also stand in for walls, drills mine nothing there
+     */
+    public void setBuildable(int x, int y, boolean value) {
+        buildable.set(x, y, value);
+    }
+    
+    /**
+     * Forget every queued block
+     */
+    public void clearPlans() {
+        plans.clear();
+        reserved.clearAll();
+    }
+    
+    @Override
+    public int width() {
+        return width;
+    }
+    
+    @Override
+    public int height() {
+        return height;
+    }
+    
+    @Override
+    public Tile tile(int x, int y) {
+        if (!inBounds(x, y)) return null;
+        
+        int index = index(x, y);
+        if (tiles[index] == null) {
+            tiles[index] = new Tile(x, y);
+        }
+        return tiles[index];
+    }
+    
+    @Override
+    public int drop(int x, int y) {
+        return inBounds(x, y) ? drops[index(x, y)] : -1;
+    }
+    
+    @Override
+    public int mineable(int x, int y, Drill drill) {
+        if (!inBounds(x, y) || !buildable.get(x, y)) return -1;
+        
+        int index = index(x, y);
+        return drops[index] != -1 && hardness[index] <= drill.tier ? drops[index] : -1;
+    }
+    
+    @Override
+    public boolean buildable(int x, int y) {
+        return inBounds(x, y) && buildable.get(x, y);
+    }
+    
+    @Override
+    public boolean placeable(int x, int y) {
+        return buildable(x, y) && !reserved.get(x, y);
+    }
+    
+    @Override
+    public boolean placeableSpan(int x, int y, int length) {
+        return buildable.allSet(x, y, length) && !reserved.anySet(x, y, length);
+    }
+    
+    @Override
+    public void queue(int x, int y, int rotation, Block block, Object config) {
+        plans.add(new BuildPlan(x, y, rotation, block, config));
+        int offset = PlanGrid.offset(block.size);
+        PlanIndex.setFootprint(reserved, x + offset, y + offset, block.size);
+    }
+}
\ No newline at end of file
@@ -3,8 +3,9 @@ package unila;
 import arc.Core;
 import arc.input.KeyCode;
 import arc.struct.*;
-import arc.util.Tmp;
+import arc.util.Strings;
 import mindustry.content.Blocks;
+import mindustry.entities.units.BuildPlan;
 import mindustry.gen.*;
 import mindustry.type.Item;
 import mindustry.world.Block;
@@ -17,15 +18,25 @@ import static mindustry.Vars.*;
  * Handles input, drill placement logic, and auto-scanning
  */
 public class AutoDrillManager {
+    // Room a snapshot leaves around a patch for its pipes and extractors, ConduitRouter routes up to 8 tiles out
+    private static final int SNAPSHOT_MARGIN = 10;
+    
     private boolean enabled = false;
     
-    // Cached data structures
-    private final Seq<Tile> floodTiles = new Seq<>(512);
-    private final Seq<DrillPlacement> placements = new Seq<>(128);
-    private final IntSet visited = new IntSet(1024);
-    private final IntSet placed = new IntSet(512);
-    private final Queue<Tile> queue = new Queue<>();
-    private final ObjectMap<Tile, OreCount> tileOreCache = new ObjectMap<>(256);
+    // Flood fill, drills and infrastructure of the patch being planned
+    private final PatchPlanner planner = new PatchPlanner();
+    private final Seq<Tile> floodTiles = planner.floodTiles;
+    private final OrePatchIndex patchIndex = new OrePatchIndex();
+    
+    // Auto-scan in progress, null when idle
+    private AutoScanJob scanJob;
+    
+    // Background planning against world snapshots
+    private final SnapshotPlanner snapshotPlanner = new SnapshotPlanner();
+    private boolean backgroundScan;
+    private int backgroundDrills;
+    // Drill plans of the batch being committed
+    private final Seq<BuildPlan> committed = new Seq<>();
     
     // UI callback
     private Runnable onShowDrillOptions;
@@ -104,41 +115,70 @@ public class AutoDrillManager {
      * Get flood-filled tiles for a given ore type
      */
     public Seq<Tile> getFloodTiles(Tile start, Item ore) {
-        floodFill(start, ore);
+        collectPatch(start, ore);
         return new Seq<>(floodTiles);
     }
     
     /**
-     * Flood fill algorithm to find connected ore tiles
+     * Label every ore patch of the freshly loaded world
+     * Background plans of the previous world are invalidated, whether they came from a scan or a single patch
      */
-    private void floodFill(Tile start, Item ore) {
-        floodTiles.clear();
-        queue.clear();
-        visited.clear();
-        
-        queue.addLast(start);
-        visited.add(start.pos());
+    public void onWorldLoad() {
+        snapshotPlanner.cancel();
+        patchIndex.rebuild();
+        DrillUtility.placeMask.reset();
+        DrillUtility.powerIndex.reset();
+        DrillUtility.feeder.clear();
+    }
+    
+    /**
+     * Keep the patch index current when a tile changes
+     */
+    public void onTileChanged(Tile tile) {
+        patchIndex.onTileChanged(tile);
+        DrillUtility.placeMask.onTileChanged(tile);
+        DrillUtility.powerIndex.onTileChanged(tile);
+    }
+    
+    /**
+     * Refresh placeability around a finished or deconstructed block
+     */
+    public void onBuildEnd(Tile tile) {
+        DrillUtility.placeMask.onBuildEnd(tile);
+        DrillUtility.powerIndex.onTileChanged(tile);
+    }
+    
+    public OrePatchIndex getPatchIndex() {
+        return patchIndex;
+    }
+    
+    /**
+     * Fill floodTiles with the patch containing start
+     * Uses the patch index when possible, falling back to a live flood fill
+     * for patches larger than maxTiles, which must be grown from the clicked tile
+     * The index connects tiles by the flood fill's rule except for team placeability, e.g. darkness;
+     * when that drops a tile the patch may fall apart, so it is flood filled from the clicked tile instead
+     */
+    private void collectPatch(Tile start, Item ore) {
+        PlanMetrics.begin(PlanMetrics.Phase.FLOOD_FILL);
+        Object event = PlannerEvents.begin(PlannerEvents.Stage.FLOOD_FILL);
+        OrePatchIndex.Patch patch = patchIndex.patchAt(start);
         
-        while (queue.size > 0 && floodTiles.size < Config.maxTiles) {
-            Tile current = queue.removeFirst();
-            
-            if (current.drop() == ore && Build.validPlace(Blocks.copperWall, player.team(), current.x, current.y, 0)) {
-                floodTiles.add(current);
-                
-                // Check adjacent tiles
-                for (int dx = -1; dx <= 1; dx++) {
-                    for (int dy = -1; dy <= 1; dy++) {
-                        if (dx == 0 && dy == 0) continue;
-                        
-                        Tile neighbor = current.nearby(dx, dy);
-                        if (neighbor != null && !visited.contains(neighbor.pos())) {
-                            visited.add(neighbor.pos());
-                            queue.addLast(neighbor);
-                        }
-                    }
+        if (patch == null || patch.item != ore || patch.size() > Config.maxTiles) {
+            planner.floodFill(start, ore);
+        } else {
+            floodTiles.clear();
+            for (int i = 0; i < patch.tiles.size; i++) {
+                Tile tile = world.tiles.geti(patch.tiles.get(i));
+                if (!DrillUtility.placeMask.isBuildable(tile.x, tile.y)) {
+                    planner.floodFill(start, ore);
+                    break;
                 }
+                floodTiles.add(tile);
             }
         }
+        PlanMetrics.end(PlanMetrics.Phase.FLOOD_FILL);
+        PlannerEvents.end(event, floodTiles.size, null, 0, 0);
     }
     
     /**
@@ -150,52 +190,155 @@ public class AutoDrillManager {
             return;
         }
         
-        // Cache ore counts
-        placements.clear();
-        placed.clear();
-        tileOreCache.clear();
+        if (Config.backgroundPlanning) {
+            planPatchInBackground(drill, ore);
+            return;
+        }
         
-        for (Tile tile : floodTiles) {
-            OreCount count = DrillUtility.countOre(tile, drill);
-            if (count != null) {
-                tileOreCache.put(tile, count);
+        int placedCount = placePatch(drill, ore, Config.optimizerBudgetMs * 1_000_000L);
+        showPlaced(placedCount, ore, planner.report);
+    }
+    
+    private void showPlaced(int placedCount, Item ore, PatchPlanner.Report report) {
+        if (placedCount == 0) {
+            ui.showInfoToast("No valid placement spots!", 2f);
+        } else {
+            String message = "[green]Placed " + placedCount + " drills![] (" + Strings.fixed(report.yield, 1) + " " + ore.localizedName + "/s)";
+            if (Config.optimizerBudgetMs > 0) {
+                message += "\n[lightgray]Ore covered: " + report.coverageBefore + " -> " + report.coverageAfter
+                    + (report.optimal ? " (optimal)" : "") + "[]";
             }
+            ui.showInfoToast(message, 2.5f);
+        }
+    }
+    
+    /**
+     * Plan and queue drills plus infrastructure for the current flood tiles
+     * @param searchBudgetNanos time the local search may spend refining the greedy plan, split between tiers
+     * @return number of drills placed
+     */
+    private int placePatch(Drill drill, Item ore, long searchBudgetNanos) {
+        int placedCount = planner.plan(drill, ore, searchBudgetNanos, true);
+        if (placedCount > 0) {
+            reportInfrastructure(planner.report);
         }
         
-        // Calculate optimal placements
-        DrillOptimization.calculateOptimalPlacements(drill, ore, floodTiles, tileOreCache, placements, placed);
+        clearCaches();
+        return placedCount;
+    }
+    
+    /**
+     * Toast what the infrastructure stages of a plan queued
+     */
+    private void reportInfrastructure(PatchPlanner.Report report) {
+        if (report.unpiped > 0) {
+            ui.showInfoToast("+ " + report.piped + " pipe connections, [scarlet]" + report.unpiped + " drills unreachable[]", 2.5f);
+        } else if (report.piped > 0) {
+            ui.showInfoToast("+ " + report.piped + " pipe connections", 1.5f);
+        }
         
-        if (placements.isEmpty()) {
-            ui.showInfoToast("No valid placement spots!", 2f);
-            return;
+        if (report.extractors > 0 || report.underfed > 0) {
+            String water = report.waterBalance >= 0f
+                ? "[green]+" + Strings.fixed(report.waterBalance, 1) + " water/s[]"
+                : "[scarlet]" + Strings.fixed(report.waterBalance, 1) + " water/s, " + report.underfed + " drills underfed[]";
+            ui.showInfoToast("+ " + report.extractors + " water extractors, " + water, 2f);
         }
         
-        // Place drills
-        for (DrillPlacement placement : placements) {
-            player.unit().addBuild(new BuildPlan(placement.tile.x, placement.tile.y, 0, drill));
+        if (report.nodes > 0 && report.islands > 0) {
+            String islands = report.islands == 1 ? "1 group" : report.islands + " groups";
+            ui.showInfoToast("+ " + report.nodes + " power nodes, [orange]" + islands + " with no powered grid in reach[]", 2.5f);
+        } else if (report.nodes > 0) {
+            ui.showInfoToast("+ " + report.nodes + " power nodes, linked to the grid", 1.5f);
+        }
+    }
+    
+    /**
+     * Snapshot the current flood tiles and plan them on the planner thread
+     */
+    private void planPatchInBackground(Drill drill, Item ore) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Tile tile : floodTiles) {
+            minX = Math.min(minX, tile.x);
+            minY = Math.min(minY, tile.y);
+            maxX = Math.max(maxX, tile.x);
+            maxY = Math.max(maxY, tile.y);
         }
         
-        // Place supporting structures
-        if (drill.liquidBoostIntensity > 0 && Config.placeWaterExtractors) {
-            if (Config.usePipeInput) {
-                InfrastructurePlacer.connectWithPipes(placements, drill);
-            } else {
-                InfrastructurePlacer.placeExtractors(placements, drill);
+        int margin = drill.size + SNAPSHOT_MARGIN;
+        WorldSnapshot snapshot = WorldSnapshot.capture(minX - margin, minY - margin,
+            maxX + margin, maxY + margin, player.team());
+        
+        IntSeq cells = new IntSeq(floodTiles.size);
+        for (Tile tile : floodTiles) {
+            cells.add(snapshot.index(tile.x, tile.y));
+        }
+        
+        snapshotPlanner.submitPatch(snapshot, cells, drill, ore, batch -> {
+            int placedCount = commitBatch(batch);
+            showPlaced(placedCount, ore, batch.report);
+        }, () -> ui.showInfoToast("[scarlet]Background planning failed, see the log[]", 2.5f));
+    }
+    
+    /**
+     * Queue a planner batch on the live world and add its power nodes
+     * Runs on the main thread; plans whose tiles were built on or reserved since the snapshot are dropped,
+     * the feeder checks units and enemy core radius before each plan reaches the unit
+     * Power nodes are planned here, linking into the team's grid needs the loaded world
+     * @return number of drills placed
+     */
+    private int commitBatch(SnapshotPlanner.PlanBatch batch) {
+        if (!snapshotPlanner.isCurrent(batch) || !state.isGame() || player.unit() == null) return 0;
+        
+        planner.beginPlan();
+        committed.clear();
+        
+        PlanMetrics.begin(PlanMetrics.Phase.SUBMIT);
+        for (int i = 0; i < batch.plans.size; i++) {
+            BuildPlan plan = batch.plans.get(i);
+            Tile tile = world.tile(plan.x, plan.y);
+            if (tile == null || !DrillUtility.canPlaceBlock(DrillUtility.worldGrid, tile, plan.block, planner.placed)) continue;
+            
+            DrillUtility.queueBuild(plan.x, plan.y, plan.rotation, plan.block, plan.config);
+            DrillUtility.markBlockArea(tile, plan.block.size, planner.placed);
+            if (plan.block instanceof Drill) committed.add(plan);
+        }
+        PlanMetrics.end(PlanMetrics.Phase.SUBMIT);
+        
+        // Each tier's nodes go around the drills, pipes and nodes already marked
+        for (int t = 0; t < batch.tiers.size; t++) {
+            Drill drill = batch.tiers.get(t);
+            planner.workspace.freePlacements(planner.placements);
+            for (int i = 0; i < committed.size; i++) {
+                BuildPlan plan = committed.get(i);
+                if (plan.block == drill) {
+                    planner.placements.add(planner.workspace.obtainPlacement(world.tile(plan.x, plan.y), 0));
+                }
             }
+            planner.placePower(drill);
         }
         
-        if (Config.placePowerNodes) {
-            InfrastructurePlacer.placePowerNodes(placements, drill);
+        int placedCount = committed.size;
+        if (placedCount > 0) {
+            batch.report.nodes = planner.report.nodes;
+            batch.report.islands = planner.report.islands;
+            reportInfrastructure(batch.report);
         }
         
-        ui.showInfoToast("[green]Placed " + placements.size + " drills![]", 2.5f);
+        committed.clear();
         clearCaches();
+        return placedCount;
     }
     
     /**
-     * Perform auto-scan around player position
+     * Start an auto-scan around the player, or cancel the one in progress
      */
     public void performAutoScan() {
+        if (isScanning()) {
+            cancelAutoScan();
+            return;
+        }
+        
         if (!Config.autoScanEnabled) {
             ui.showInfoToast("Auto-scan disabled. Enable in settings!", 2f);
             return;
@@ -206,8 +349,8 @@ public class AutoDrillManager {
             return;
         }
         
-        int playerX = Tmp.p1.set(player.unit()).tileX();
-        int playerY = Tmp.p1.set(player.unit()).tileY();
+        int playerX = player.unit().tileX();
+        int playerY = player.unit().tileY();
         
         Drill selectedDrill = DrillUtility.getDrillByTier(Config.autoScanDrillTier);
         if (selectedDrill == null) {
@@ -215,56 +358,129 @@ public class AutoDrillManager {
             return;
         }
         
-        ui.showInfoToast("[accent]Scanning area...", 2f);
-        
-        IntSet scannedTiles = new IntSet();
-        int totalDrills = 0;
-        int radiusSquared = Config.autoScanRadius * Config.autoScanRadius;
-        
-        for (int dx = -Config.autoScanRadius; dx <= Config.autoScanRadius; dx++) {
-            for (int dy = -Config.autoScanRadius; dy <= Config.autoScanRadius; dy++) {
-                if (dx * dx + dy * dy > radiusSquared) continue;
-                
-                Tile tile = world.tile(playerX + dx, playerY + dy);
-                if (tile == null || scannedTiles.contains(tile.pos())) continue;
-                
-                Item ore = tile.drop();
-                if (ore == null || tile.block() != Blocks.air) continue;
-                if (selectedDrill.tier < ore.hardness) continue;
-                
-                // Flood fill this ore patch
-                floodFill(tile, ore);
-                
-                // Mark all tiles as scanned
-                for (Tile floodTile : floodTiles) {
-                    scannedTiles.add(floodTile.pos());
-                }
-                
-                if (floodTiles.size >= Config.minOres) {
-                    // Place drills for this patch
-                    placeDrills(selectedDrill, ore);
-                    totalDrills += placements.size;
+        ui.showInfoToast("[accent]Scanning area... (press " + Config.autoScanKey + " to cancel)", 2f);
+        
+        if (Config.backgroundPlanning) {
+            startBackgroundScan(selectedDrill, playerX, playerY);
+        } else {
+            scanJob = new AutoScanJob(selectedDrill, playerX, playerY, Config.autoScanRadius);
+        }
+    }
+    
+    /**
+     * Snapshot the scan area once and let the planner thread find and plan every patch
+     */
+    private void startBackgroundScan(Drill drill, int centerX, int centerY) {
+        // Patches may extend past the scan circle, pad the snapshot so most of them fit
+        int reach = Config.autoScanRadius + 16 + drill.size + SNAPSHOT_MARGIN;
+        WorldSnapshot snapshot = WorldSnapshot.capture(centerX - reach, centerY - reach,
+            centerX + reach, centerY + reach, player.team());
+        
+        backgroundScan = true;
+        backgroundDrills = 0;
+        
+        snapshotPlanner.submitScan(snapshot, drill, centerX, centerY, Config.autoScanRadius,
+            batch -> backgroundDrills += commitBatch(batch),
+            () -> {
+                backgroundScan = false;
+                if (backgroundDrills > 0) {
+                    ui.showInfoToast("[green]Auto-scan complete! Placed " + backgroundDrills + " drills[]", 3f);
+                } else {
+                    ui.showInfoToast("No suitable ore patches found in range", 2f);
                 }
+            },
+            () -> {
+                backgroundScan = false;
+                ui.showInfoToast("[scarlet]Auto-scan failed, see the log[] (" + backgroundDrills + " drills placed)", 2.5f);
+            });
+    }
+    
+    /**
+     * Advance the running auto-scan within the per-frame budget
+     */
+    public void updateAutoScan() {
+        if (scanJob == null) return;
+        
+        if (!state.isGame() || player == null || player.unit() == null) {
+            cancelAutoScan();
+            return;
+        }
+        
+        if (state.isPaused()) return;
+        
+        if (scanJob.step(this, AutoScanJob.FRAME_BUDGET_NANOS)) {
+            int totalDrills = scanJob.totalDrills();
+            scanJob = null;
+            clearCaches();
+            
+            if (totalDrills > 0) {
+                ui.showInfoToast("[green]Auto-scan complete! Placed " + totalDrills + " drills[]", 3f);
+            } else {
+                ui.showInfoToast("No suitable ore patches found in range", 2f);
             }
         }
+    }
+    
+    /**
+     * Stop the running auto-scan, keeping the patches already placed
+     */
+    public void cancelAutoScan() {
+        if (backgroundScan) {
+            snapshotPlanner.cancel();
+            backgroundScan = false;
+            ui.showInfoToast("[orange]Auto-scan cancelled[] (" + backgroundDrills + " drills placed)", 2f);
+            return;
+        }
+        
+        if (scanJob == null) return;
         
+        int totalDrills = scanJob.totalDrills();
+        scanJob = null;
         clearCaches();
+        ui.showInfoToast("[orange]Auto-scan cancelled[] (" + totalDrills + " drills placed)", 2f);
+    }
+    
+    public boolean isScanning() {
+        return scanJob != null || backgroundScan;
+    }
+    
+    /**
+     * Progress of the running auto-scan, 0 to 1
+     */
+    public float scanProgress() {
+        if (backgroundScan) return snapshotPlanner.progress();
+        return scanJob == null ? 0f : scanJob.progress();
+    }
+    
+    /**
+     * Flood fill and plan one patch for an auto-scan job
+     * @param budgetNanos time left in the job's step, the optimizer never gets more
+     * @return number of drills placed for the patch
+     */
+    int scanPatch(Tile start, Item ore, Drill drill, IntSet scannedTiles, long budgetNanos) {
+        Object event = PlannerEvents.begin(PlannerEvents.Stage.SCAN_PATCH);
+        collectPatch(start, ore);
         
-        if (totalDrills > 0) {
-            ui.showInfoToast("[green]Auto-scan complete! Placed " + totalDrills + " drills[]", 3f);
-        } else {
-            ui.showInfoToast("No suitable ore patches found in range", 2f);
+        // Mark all tiles as scanned
+        for (Tile floodTile : floodTiles) {
+            scannedTiles.add(floodTile.pos());
         }
+        
+        int patchSize = floodTiles.size;
+        int placedCount = 0;
+        if (patchSize >= Config.minOres) {
+            // Keep a scan step bounded, the search only gets what the step has left
+            placedCount = placePatch(drill, ore, Math.max(Math.min(Config.optimizerBudgetMs * 1_000_000L, budgetNanos), 0L));
+        }
+        
+        PlannerEvents.end(event, patchSize, drill, 0, placedCount);
+        return placedCount;
     }
     
     /**
      * Clear all cached data
      */
     public void clearCaches() {
-        tileOreCache.clear();
-        floodTiles.clear();
-        placements.clear();
-        visited.clear();
-        placed.clear();
+        planner.clear();
     }
 }
\ No newline at end of file
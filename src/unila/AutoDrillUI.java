@@ -12,6 +12,7 @@ import mindustry.content.Blocks;
 import mindustry.gen.Icon;
 import mindustry.gen.Tex;
 import mindustry.type.Item;
+import mindustry.ui.Bar;
 import mindustry.ui.Styles;
 import mindustry.ui.dialogs.BaseDialog;
 import mindustry.world.Block;
@@ -45,6 +46,9 @@ public class AutoDrillUI {
         if (Config.displayToggleButton) {
             addToggleButton();
         }
+        addScanProgress();
+        addFeederStats();
+        addMetricsOverlay();
         createSettingsDialog();
     }
     
@@ -238,6 +242,63 @@ public class AutoDrillUI {
         });
     }
     
+    /**
+     * Add auto-scan progress bar to HUD, visible while a scan is running
+     */
+    private void addScanProgress() {
+        ui.hudGroup.fill(container -> {
+            container.name = "unila-autoscan-progress";
+            container.top();
+            container.visible(manager::isScanning);
+            
+            container.table(Tex.buttonEdge3, bar -> {
+                bar.margin(6f);
+                bar.add(new Bar(
+                    () -> "Auto-Scan " + (int)(manager.scanProgress() * 100) + "%",
+                    () -> Color.accent,
+                    manager::scanProgress
+                )).size(260f, 26f).row();
+                bar.add("[lightgray]Press " + Config.autoScanKey + " to cancel[]").scale(0.8f).padTop(4f)
+                    .update(label -> label.setText("[lightgray]Press " + Config.autoScanKey + " to cancel[]"));
+            }).padTop(60f);
+        });
+    }
+    
+    /**
+     * Add build feeder counts to HUD, visible while plans are held back
+     */
+    private void addFeederStats() {
+        PlanFeeder feeder = DrillUtility.feeder;
+        
+        ui.hudGroup.fill(container -> {
+            container.name = "unila-feeder-stats";
+            container.top();
+            container.visible(feeder::isFeeding);
+            
+            container.table(Tex.buttonEdge3, stats -> {
+                stats.margin(6f);
+                stats.label(() -> "[accent]Plans:[] " + feeder.pendingCount() + " pending, " + feeder.activeCount() + " active")
+                    .scale(0.8f);
+            }).padTop(130f);
+        });
+    }
+    
+    /**
+     * Add planner phase timings to HUD, toggled in settings
+     */
+    private void addMetricsOverlay() {
+        ui.hudGroup.fill(container -> {
+            container.name = "unila-plan-metrics";
+            container.top().right();
+            container.visible(() -> Config.metricsOverlay);
+            
+            container.table(Tex.buttonEdge3, stats -> {
+                stats.margin(6f);
+                stats.label(PlanMetrics::report).scale(0.7f).left();
+            }).padTop(180f);
+        });
+    }
+    
     /**
      * Create settings dialog
      */
@@ -318,17 +379,47 @@ public class AutoDrillUI {
                 }).width(320f);
             }).left().row();
             
-            // Optimization quality slider
-            pane.table(qualRow -> {
-                qualRow.left();
-                qualRow.image(Icon.effect).size(24f).padRight(8f);
-                qualRow.add("Optimization Quality: ").left();
-                Label qualLabel = qualRow.add(Config.optimizationQuality + "").width(60f).left().color(Color.accent).get();
-                qualRow.row();
-                qualRow.add().width(32f);
-                qualRow.slider(1, 10, 1, Config.optimizationQuality, value -> {
-                    Config.optimizationQuality = (int)value;
-                    qualLabel.setText((int)value + "");
+            // Optimizer time budget slider, 0 disables the local search
+            pane.table(optRow -> {
+                optRow.left();
+                optRow.image(Icon.effect).size(24f).padRight(8f);
+                optRow.add("Optimizer Budget: ").left();
+                Label optLabel = optRow.add(Config.optimizerBudgetMs + " ms").width(60f).left().color(Color.accent).get();
+                optRow.row();
+                optRow.add().width(32f);
+                optRow.slider(0, 200, 10, Config.optimizerBudgetMs, value -> {
+                    Config.optimizerBudgetMs = (int)value;
+                    optLabel.setText((int)value + " ms");
+                    Config.save();
+                }).width(320f);
+            }).left().row();
+            
+            // Exact solver patch size slider, 0 disables it
+            pane.table(exactRow -> {
+                exactRow.left();
+                exactRow.image(Icon.zoom).size(24f).padRight(8f);
+                exactRow.add("Exact Solver Tiles: ").left();
+                Label exactLabel = exactRow.add(Config.exactMaxTiles + "").width(60f).left().color(Color.accent).get();
+                exactRow.row();
+                exactRow.add().width(32f);
+                exactRow.slider(0, 1000, 50, Config.exactMaxTiles, value -> {
+                    Config.exactMaxTiles = (int)value;
+                    exactLabel.setText((int)value + "");
+                    Config.save();
+                }).width(320f);
+            }).left().row();
+            
+            // Lattice tiling patch size slider, 0 disables it
+            pane.table(latticeRow -> {
+                latticeRow.left();
+                latticeRow.image(Icon.distribution).size(24f).padRight(8f);
+                latticeRow.add("Lattice From Tiles: ").left();
+                Label latticeLabel = latticeRow.add(Config.latticeMinTiles + "").width(60f).left().color(Color.accent).get();
+                latticeRow.row();
+                latticeRow.add().width(32f);
+                latticeRow.slider(0, 5000, 250, Config.latticeMinTiles, value -> {
+                    Config.latticeMinTiles = (int)value;
+                    latticeLabel.setText((int)value + "");
                     Config.save();
                 }).width(320f);
             }).left().row();
@@ -363,6 +454,36 @@ public class AutoDrillUI {
                 }).left();
             }).left().row();
             
+            // Background planning checkbox
+            pane.table(backgroundRow -> {
+                backgroundRow.left();
+                backgroundRow.image(Icon.refresh).size(24f).padRight(8f);
+                backgroundRow.check("Plan in Background", Config.backgroundPlanning, value -> {
+                    Config.backgroundPlanning = value;
+                    Config.save();
+                }).left();
+            }).left().row();
+            
+            // Mixed drill tiers checkbox
+            pane.table(mixedRow -> {
+                mixedRow.left();
+                mixedRow.image(Icon.production).size(24f).padRight(8f);
+                mixedRow.check("Mix Drill Tiers", Config.mixedTiers, value -> {
+                    Config.mixedTiers = value;
+                    Config.save();
+                }).left();
+            }).left().row();
+            
+            // Planner metrics overlay checkbox
+            pane.table(metricsRow -> {
+                metricsRow.left();
+                metricsRow.image(Icon.info).size(24f).padRight(8f);
+                metricsRow.check("Show Planner Metrics", Config.metricsOverlay, value -> {
+                    Config.metricsOverlay = value;
+                    Config.save();
+                }).left();
+            }).left().row();
+            
             pane.add("").row();
             
             // Auto-scan header
@@ -0,0 +1,156 @@
+package unila;
+
+import arc.struct.*;
+import arc.util.Structs;
+import arc.util.Time;
+import mindustry.content.Blocks;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import static mindustry.Vars.*;
+
+/**
+ * Resumable auto-scan over a circular area
+ * Advanced a little every frame so large radii never stall the client
+ * Indexed patches are collected first and then planned highest yield first,
+ * so the most valuable drills are at the front of the build queue
+ */
+public class AutoScanJob {
+    /** Time the job may use per frame */
+    public static final long FRAME_BUDGET_NANOS = 4_000_000L;
+    
+    public final Drill drill;
+    private final int centerX, centerY, radius;
+    private final int radiusSquared;
+    
+    // Scan cursor, resumes where the last frame stopped
+    private int dx, dy;
+    private int cellsVisited;
+    private final int cellsTotal;
+    
+    private final IntSet scannedTiles = new IntSet();
+    private final IntSet scannedPatches = new IntSet();
+    private int totalDrills;
+    private int patches;
+    private boolean cellsDone;
+    private boolean finished;
+    // Time.nanos() at which the current step has to yield
+    private long stepEnd;
+    
+    // Patches found by the scan, ranked once every cell has been visited
+    private final Seq<OrePatchIndex.Patch> found = new Seq<>();
+    private boolean ranked;
+    private int planned;
+    
+    public AutoScanJob(Drill drill, int centerX, int centerY, int radius) {
+        this.drill = drill;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+        this.radiusSquared = radius * radius;
+        this.dx = -radius;
+        this.dy = -radius;
+        this.cellsTotal = (2 * radius + 1) * (2 * radius + 1);
+    }
+    
+    /**
+     * Scan, then plan, until the frame budget runs out
+     * @return true once the whole area has been scanned and planned
+     */
+    public boolean step(AutoDrillManager manager, long budgetNanos) {
+        stepEnd = Time.nanos() + budgetNanos;
+        
+        while (!finished) {
+            if (remainingNanos() <= 0) return false;
+            
+            if (!cellsDone) {
+                scanCell(manager);
+            } else if (!ranked) {
+                boolean boosted = YieldModel.isBoosted(drill);
+                found.sort(Structs.comparingFloat(patch -> -YieldModel.planYield(drill, patch.item, patch.size(), boosted)));
+                ranked = true;
+            } else if (planned < found.size) {
+                planRanked(manager, found.get(planned++));
+            } else {
+                finished = true;
+            }
+        }
+        
+        return true;
+    }
+    
+    private void scanCell(AutoDrillManager manager) {
+        Tile tile = world.tile(centerX + dx, centerY + dy);
+        boolean inRange = dx * dx + dy * dy <= radiusSquared;
+        advance();
+        
+        if (!inRange || tile == null || scannedTiles.contains(tile.pos())) return;
+        
+        Item ore = tile.drop();
+        if (ore == null || tile.block() != Blocks.air) return;
+        if (drill.tier < ore.hardness) return;
+        
+        // Indexed patches are ranked and planned once, however many scan cells they span
+        OrePatchIndex.Patch patch = manager.getPatchIndex().patchAt(tile);
+        if (patch != null) {
+            if (scannedPatches.add(patch.id)) found.add(patch);
+            return;
+        }
+        
+        count(manager.scanPatch(tile, ore, drill, scannedTiles, remainingNanos()));
+    }
+    
+    private void planRanked(AutoDrillManager manager, OrePatchIndex.Patch patch) {
+        // The patch may have been mined out or built over since the scan saw it
+        Tile tile = world.tiles.geti(patch.tiles.first());
+        if (tile.drop() != patch.item || tile.block() != Blocks.air) return;
+        
+        count(manager.scanPatch(tile, patch.item, drill, scannedTiles, remainingNanos()));
+    }
+    
+    /**
+     * Time left in the current step, handed to each patch's optimizer
+     */
+    private long remainingNanos() {
+        return stepEnd - Time.nanos();
+    }
+    
+    private void count(int placed) {
+        if (placed > 0) {
+            totalDrills += placed;
+            patches++;
+        }
+    }
+    
+    private void advance() {
+        cellsVisited++;
+        if (++dy > radius) {
+            dy = -radius;
+            if (++dx > radius) {
+                cellsDone = true;
+            }
+        }
+    }
+    
+    public boolean isFinished() {
+        return finished;
+    }
+    
+    /**
+     * Fraction of the area scanned so far, 0 to 1
+     */
+    public float progress() {
+        // First half scanning, second half planning the ranked patches
+        float scanned = cellsTotal == 0 ? 1f : (float)cellsVisited / cellsTotal;
+        float planning = found.isEmpty() ? (cellsDone ? 1f : 0f) : (float)planned / found.size;
+        return (scanned + planning) / 2f;
+    }
+    
+    public int totalDrills() {
+        return totalDrills;
+    }
+    
+    public int patches() {
+        return patches;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package unila;
+
+import java.util.Arrays;
+
+/**
+ * Row-packed bitmap over a width x height grid
+ * Each row starts on a fresh long word so row spans can be tested with shifts
+ */
+public class Bitboard {
+    private int width, height;
+    private int wordsPerRow;
+    private long[] words = new long[0];
+    
+    public Bitboard() {
+    }
+    
+    public Bitboard(int width, int height) {
+        resize(width, height);
+    }
+    
+    /**
+     * Resize to the given dimensions and clear every bit
+     */
+    public void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        
+        int length = wordsPerRow * height;
+        if (words.length < length) {
+            words = new long[length];
+        } else {
+            Arrays.fill(words, 0, length, 0L);
+        }
+    }
+    
+    public int width() {
+        return width;
+    }
+    
+    public int height() {
+        return height;
+    }
+    
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+    
+    public boolean get(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+    
+    public void set(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+    }
+    
+    public void clear(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+    }
+    
+    public void set(int x, int y, boolean value) {
+        if (value) set(x, y);
+        else clear(x, y);
+    }
+    
+    /**
+     * True if any bit in [x, x + length) of row y is set
+     */
+    public boolean anySet(int x, int y, int length) {
+        int base = y * wordsPerRow;
+        int end = x + length;
+        
+        for (int word = x >>> 6; word <= (end - 1) >>> 6; word++) {
+            if ((words[base + word] & spanMask(word, x, end)) != 0) return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * True if every bit in [x, x + length) of row y is set
+     */
+    public boolean allSet(int x, int y, int length) {
+        int base = y * wordsPerRow;
+        int end = x + length;
+        
+        for (int word = x >>> 6; word <= (end - 1) >>> 6; word++) {
+            long mask = spanMask(word, x, end);
+            if ((words[base + word] & mask) != mask) return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Set every bit in [x, x + length) of row y
+     */
+    public void setSpan(int x, int y, int length) {
+        int base = y * wordsPerRow;
+        int end = x + length;
+        
+        for (int word = x >>> 6; word <= (end - 1) >>> 6; word++) {
+            words[base + word] |= spanMask(word, x, end);
+        }
+    }
+    
+    /**
+     * Clear every bit in [x, x + length) of row y
+     */
+    public void clearSpan(int x, int y, int length) {
+        int base = y * wordsPerRow;
+        int end = x + length;
+        
+        for (int word = x >>> 6; word <= (end - 1) >>> 6; word++) {
+            words[base + word] &= ~spanMask(word, x, end);
+        }
+    }
+    
+    /**
+     * True if any bit of the rectangle with corner (x, y) is set
+     */
+    public boolean anySet(int x, int y, int width, int height) {
+        for (int row = 0; row < height; row++) {
+            if (anySet(x, y + row, width)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Set every bit of the rectangle with corner (x, y)
+     */
+    public void setRect(int x, int y, int width, int height) {
+        for (int row = 0; row < height; row++) {
+            setSpan(x, y + row, width);
+        }
+    }
+    
+    /**
+     * Clear every bit of the rectangle with corner (x, y)
+     */
+    public void clearRect(int x, int y, int width, int height) {
+        for (int row = 0; row < height; row++) {
+            clearSpan(x, y + row, width);
+        }
+    }
+    
+    /**
+     * Bits of [start, end) that fall into the given word of a row
+     */
+    private static long spanMask(int word, int start, int end) {
+        int from = Math.max(start - (word << 6), 0);
+        int to = Math.min(end - (word << 6), 64);
+        long high = to == 64 ? -1L : (1L << to) - 1;
+        long low = (1L << from) - 1;
+        return high & ~low;
+    }
+    
+    /**
+     * Clear every bit without resizing
+     */
+    public void clearAll() {
+        Arrays.fill(words, 0, wordsPerRow * height, 0L);
+    }
+    
+    /**
+     * Take the other board's size and bits
+     */
+    public void copyFrom(Bitboard other) {
+        resize(other.width, other.height);
+        System.arraycopy(other.words, 0, words, 0, other.wordsPerRow * other.height);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package unila;
+
+import arc.struct.*;
+
+/**
+ * Coarse grid of 8x8 tile buckets holding int entries, the spatial part of PlanIndex and PowerGridIndex
+ * Buckets are created the first time an entry lands in them; what an entry means is up to the owner
+ */
+public class BucketGrid {
+    public static final int SHIFT = 3;
+    public static final int SIZE = 1 << SHIFT;
+    
+    private int bucketsX, bucketsY;
+    private IntSeq[] buckets = new IntSeq[0];
+    
+    /**
+     * Empty every bucket and cover a width x height world
+     */
+    public void reset(int width, int height) {
+        bucketsX = (width + SIZE - 1) >> SHIFT;
+        bucketsY = (height + SIZE - 1) >> SHIFT;
+        
+        if (buckets.length < bucketsX * bucketsY) {
+            buckets = new IntSeq[bucketsX * bucketsY];
+        } else {
+            for (IntSeq bucket : buckets) {
+                if (bucket != null) bucket.clear();
+            }
+        }
+    }
+    
+    /**
+     * True until the first reset with a non-empty world
+     */
+    public boolean isEmpty() {
+        return bucketsX == 0 || bucketsY == 0;
+    }
+    
+    /**
+     * Bucket column of a tile, clamped to the grid
+     */
+    public int bucketX(int x) {
+        return Math.min(Math.max(x, 0) >> SHIFT, bucketsX - 1);
+    }
+    
+    /**
+     * Bucket row of a tile, clamped to the grid
+     */
+    public int bucketY(int y) {
+        return Math.min(Math.max(y, 0) >> SHIFT, bucketsY - 1);
+    }
+    
+    /**
+     * Entries of a bucket, null if it is outside the grid or nothing landed in it yet
+     */
+    public IntSeq get(int bx, int by) {
+        if (bx < 0 || by < 0 || bx >= bucketsX || by >= bucketsY) return null;
+        return buckets[bx + by * bucketsX];
+    }
+    
+    /**
+     * Entries of the bucket holding the tile, null if none
+     */
+    public IntSeq at(int x, int y) {
+        return isEmpty() ? null : get(bucketX(x), bucketY(y));
+    }
+    
+    /**
+     * List an entry in every bucket the tile rectangle [x0, x1] x [y0, y1] touches
+     */
+    public void add(int x0, int y0, int x1, int y1, int value) {
+        if (isEmpty()) return;
+        
+        for (int by = bucketY(y0); by <= bucketY(y1); by++) {
+            for (int bx = bucketX(x0); bx <= bucketX(x1); bx++) {
+                int index = bx + by * bucketsX;
+                if (buckets[index] == null) buckets[index] = new IntSeq(4);
+                buckets[index].add(value);
+            }
+        }
+    }
+    
+    /**
+     * Remove an entry from every bucket the tile rectangle touches
+     */
+    public void remove(int x0, int y0, int x1, int y1, int value) {
+        if (isEmpty()) return;
+        
+        for (int by = bucketY(y0); by <= bucketY(y1); by++) {
+            for (int bx = bucketX(x0); bx <= bucketX(x1); bx++) {
+                IntSeq bucket = buckets[bx + by * bucketsX];
+                if (bucket != null) bucket.removeValue(value);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.content.Blocks;
+import mindustry.world.Tile;
+import java.util.Arrays;
+
+/**
+ * Routes conduits from one water source to every drill as a single tree
+ * Drills join cheapest first, each along a shortest path to the pipes already laid,
+ * so later drills branch off existing lines instead of running their own back to the source
+ * Distances to the tree live in one field over the drills' surroundings; a new branch
+ * only lowers it around itself, nothing is searched again from scratch
+ * Branch points become liquid routers, conduits point away from the source
+ */
+public class ConduitRouter {
+    // Free space kept around the drills and source, room to route around obstacles
+    private static final int MARGIN = 8;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    
+    private static final byte BLOCKED = 0, FREE = 1, SOURCE = 2, CONDUIT = 3, ROUTER = 4;
+    
+    // Neighbour offsets by rotation: right, up, left, down
+    private static final int[] dx = {1, 0, -1, 0};
+    private static final int[] dy = {0, 1, 0, -1};
+    
+    // Region the field covers, in tile coordinates
+    private int originX, originY, width, height;
+    
+    // Per cell of the region
+    private byte[] kinds = new byte[0];
+    private byte[] rotations = new byte[0];
+    private int[] distances = new int[0];
+    
+    // Breadth-first queue, every cell enters at most once per spread
+    private int[] frontier = new int[0];
+    private int head, tail;
+    
+    private boolean[] joined = new boolean[0];
+    private final IntSeq path = new IntSeq();
+    
+    // Result of the last connection
+    private int bestCell, bestRotation;
+    
+    /**
+     * Queue conduits and liquid routers joining every reachable drill to the source
+     * @param source center tile of the already queued water source
+     * @param occupied tiles other blocks of this stage took, receives the pipes
+     * @return number of drills connected, the rest have no free path to the source
+     */
+    public int route(PlanGrid grid, Tile source, int sourceSize, Seq<DrillPlacement> drills, int drillSize, Bitboard occupied) {
+        int sourceX = source.x + PlanGrid.offset(sourceSize), sourceY = source.y + PlanGrid.offset(sourceSize);
+        int minX = sourceX, minY = sourceY;
+        int maxX = sourceX + sourceSize - 1, maxY = sourceY + sourceSize - 1;
+        int drillOffset = PlanGrid.offset(drillSize);
+        for (DrillPlacement placement : drills) {
+            minX = Math.min(minX, placement.tile.x + drillOffset);
+            minY = Math.min(minY, placement.tile.y + drillOffset);
+            maxX = Math.max(maxX, placement.tile.x + drillOffset + drillSize - 1);
+            maxY = Math.max(maxY, placement.tile.y + drillOffset + drillSize - 1);
+        }
+        
+        originX = Math.max(minX - MARGIN, 0);
+        originY = Math.max(minY - MARGIN, 0);
+        width = Math.min(maxX + MARGIN, grid.width() - 1) - originX + 1;
+        height = Math.min(maxY + MARGIN, grid.height() - 1) - originY + 1;
+        ensureCapacity(width * height, drills.size);
+        
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int wx = originX + x, wy = originY + y;
+                kinds[x + y * width] = !occupied.get(wx, wy) && grid.placeable(wx, wy) ? FREE : BLOCKED;
+            }
+        }
+        Arrays.fill(distances, 0, width * height, UNREACHABLE);
+        Arrays.fill(joined, 0, drills.size, false);
+        
+        // The source's footprint seeds the field
+        for (int y = sourceY; y < sourceY + sourceSize; y++) {
+            for (int x = sourceX; x < sourceX + sourceSize; x++) {
+                int cell = cell(x, y);
+                kinds[cell] = SOURCE;
+                distances[cell] = 0;
+                frontier[tail++] = cell;
+            }
+        }
+        spread();
+        
+        int connected = 0;
+        for (int round = 0; round < drills.size; round++) {
+            int bestDrill = -1, bestCost = UNREACHABLE;
+            int cell = -1, rotation = 0;
+            
+            for (int i = 0; i < drills.size; i++) {
+                if (joined[i]) continue;
+                
+                Tile tile = drills.get(i).tile;
+                int cost = cheapestEdge(tile.x + drillOffset, tile.y + drillOffset, drillSize);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestDrill = i;
+                    cell = bestCell;
+                    rotation = bestRotation;
+                }
+            }
+            
+            // Everything left is walled off
+            if (bestDrill == -1) break;
+            
+            joined[bestDrill] = true;
+            join(cell, rotation);
+            connected++;
+        }
+        
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = x + y * width;
+                if (kinds[cell] == CONDUIT) {
+                    grid.queue(originX + x, originY + y, rotations[cell], Blocks.conduit);
+                } else if (kinds[cell] == ROUTER) {
+                    grid.queue(originX + x, originY + y, 0, Blocks.liquidRouter);
+                } else {
+                    continue;
+                }
+                occupied.set(originX + x, originY + y);
+            }
+        }
+        
+        return connected;
+    }
+    
+    /**
+     * Cheapest tile touching a side of the drill footprint, left in bestCell with the rotation facing the drill
+     * @return conduits needed to reach it, UNREACHABLE if no side tile can be reached
+     */
+    private int cheapestEdge(int footX, int footY, int size) {
+        int best = UNREACHABLE;
+        for (int i = 0; i < size; i++) {
+            best = consider(footX - 1, footY + i, 0, best);
+            best = consider(footX + size, footY + i, 2, best);
+            best = consider(footX + i, footY - 1, 1, best);
+            best = consider(footX + i, footY + size, 3, best);
+        }
+        return best;
+    }
+    
+    private int consider(int x, int y, int rotation, int best) {
+        if (x < originX || y < originY || x >= originX + width || y >= originY + height) return best;
+        
+        int cell = cell(x, y);
+        if (distances[cell] >= best) return best;
+        
+        bestCell = cell;
+        bestRotation = rotation;
+        return distances[cell];
+    }
+    
+    /**
+     * Join a drill through the given side tile, laying conduits down the field to the tree
+     */
+    private void join(int cell, int rotation) {
+        if (kinds[cell] != FREE) {
+            // Already on the tree, a conduit there has to feed sideways too
+            if (kinds[cell] == CONDUIT) kinds[cell] = ROUTER;
+            return;
+        }
+        
+        path.clear();
+        int current = cell;
+        while (distances[current] > 0) {
+            path.add(current);
+            current = downhill(current);
+        }
+        
+        // The branch leaves the tree here
+        if (kinds[current] == CONDUIT) kinds[current] = ROUTER;
+        
+        // Path runs from the drill back to the tree, each conduit points at the previous one
+        for (int i = 0; i < path.size; i++) {
+            int step = path.items[i];
+            kinds[step] = CONDUIT;
+            rotations[step] = (byte)(i == 0 ? rotation : direction(step, path.items[i - 1]));
+            distances[step] = 0;
+            frontier[tail++] = step;
+        }
+        spread();
+    }
+    
+    /**
+     * Neighbour one step closer to the tree
+     */
+    private int downhill(int cell) {
+        int x = cell % width, y = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + dx[d], ny = y + dy[d];
+            if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+            
+            int next = nx + ny * width;
+            if (distances[next] == distances[cell] - 1) return next;
+        }
+        throw new IllegalStateException("Distance field has no downhill neighbour");
+    }
+    
+    private int direction(int from, int to) {
+        int offset = to - from;
+        if (offset == 1) return 0;
+        if (offset == width) return 1;
+        if (offset == -1) return 2;
+        return 3;
+    }
+    
+    /**
+     * Lower the field outwards from the queued cells
+     * Seeds all sit at distance 0, so a free cell's first improvement is already its final one
+     */
+    private void spread() {
+        while (head < tail) {
+            int cell = frontier[head++];
+            int next = distances[cell] + 1;
+            int x = cell % width, y = cell / width;
+            
+            for (int d = 0; d < 4; d++) {
+                int nx = x + dx[d], ny = y + dy[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                
+                int neighbour = nx + ny * width;
+                if (kinds[neighbour] == FREE && distances[neighbour] > next) {
+                    distances[neighbour] = next;
+                    frontier[tail++] = neighbour;
+                }
+            }
+        }
+        head = tail = 0;
+    }
+    
+    private int cell(int x, int y) {
+        return (x - originX) + (y - originY) * width;
+    }
+    
+    private void ensureCapacity(int cells, int drillCount) {
+        if (kinds.length < cells) {
+            kinds = new byte[cells];
+            rotations = new byte[cells];
+            distances = new int[cells];
+            frontier = new int[cells];
+        }
+        if (joined.length < drillCount) {
+            joined = new boolean[drillCount];
+        }
+    }
+}
\ No newline at end of file
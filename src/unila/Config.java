@@ -15,13 +15,18 @@ public class Config {
     // Core settings
     public static int maxTiles = 1000;
     public static int minOres = 2;
-    public static int optimizationQuality = 3;
+    public static int optimizerBudgetMs = 20;
+    public static int exactMaxTiles = 300;
+    public static int latticeMinTiles = 2000;
     
     // Feature flags
     public static boolean placeWaterExtractors = true;
     public static boolean placePowerNodes = true;
     public static boolean usePipeInput = false;
     public static boolean displayToggleButton = true;
+    public static boolean backgroundPlanning = false;
+    public static boolean mixedTiers = false;
+    public static boolean metricsOverlay = false;
     
     // Auto-scan settings
     public static boolean autoScanEnabled = false;
@@ -37,7 +42,12 @@ public class Config {
     private static final String KEY_POWER = "unila-power";
     private static final String KEY_PIPES = "unila-pipes";
     private static final String KEY_BUTTON = "unila-button";
-    private static final String KEY_QUALITY = "unila-quality";
+    private static final String KEY_OPTIMIZER = "unila-optimizer-ms";
+    private static final String KEY_EXACT = "unila-exact-tiles";
+    private static final String KEY_LATTICE = "unila-lattice-tiles";
+    private static final String KEY_BACKGROUND = "unila-background";
+    private static final String KEY_MIXED = "unila-mixed-tiers";
+    private static final String KEY_METRICS = "unila-metrics-hud";
     private static final String KEY_AUTOSCAN = "unila-autoscan";
     private static final String KEY_SCAN_RADIUS = "unila-scanradius";
     private static final String KEY_DRILL_TIER = "unila-drilltier";
@@ -66,7 +76,12 @@ public class Config {
         placePowerNodes = Core.settings.getBool(KEY_POWER, true);
         usePipeInput = Core.settings.getBool(KEY_PIPES, false);
         displayToggleButton = Core.settings.getBool(KEY_BUTTON, true);
-        optimizationQuality = Core.settings.getInt(KEY_QUALITY, 3);
+        optimizerBudgetMs = Core.settings.getInt(KEY_OPTIMIZER, 20);
+        exactMaxTiles = Core.settings.getInt(KEY_EXACT, 300);
+        latticeMinTiles = Core.settings.getInt(KEY_LATTICE, 2000);
+        backgroundPlanning = Core.settings.getBool(KEY_BACKGROUND, false);
+        mixedTiers = Core.settings.getBool(KEY_MIXED, false);
+        metricsOverlay = Core.settings.getBool(KEY_METRICS, false);
         autoScanEnabled = Core.settings.getBool(KEY_AUTOSCAN, false);
         autoScanRadius = Core.settings.getInt(KEY_SCAN_RADIUS, 20);
         autoScanDrillTier = Core.settings.getInt(KEY_DRILL_TIER, 2);
@@ -86,7 +101,12 @@ public class Config {
         Core.settings.put(KEY_POWER, placePowerNodes);
         Core.settings.put(KEY_PIPES, usePipeInput);
         Core.settings.put(KEY_BUTTON, displayToggleButton);
-        Core.settings.put(KEY_QUALITY, optimizationQuality);
+        Core.settings.put(KEY_OPTIMIZER, optimizerBudgetMs);
+        Core.settings.put(KEY_EXACT, exactMaxTiles);
+        Core.settings.put(KEY_LATTICE, latticeMinTiles);
+        Core.settings.put(KEY_BACKGROUND, backgroundPlanning);
+        Core.settings.put(KEY_MIXED, mixedTiers);
+        Core.settings.put(KEY_METRICS, metricsOverlay);
         Core.settings.put(KEY_AUTOSCAN, autoScanEnabled);
         Core.settings.put(KEY_SCAN_RADIUS, autoScanRadius);
         Core.settings.put(KEY_DRILL_TIER, autoScanDrillTier);
@@ -104,7 +124,12 @@ public class Config {
         placePowerNodes = true;
         usePipeInput = false;
         displayToggleButton = true;
-        optimizationQuality = 3;
+        optimizerBudgetMs = 20;
+        exactMaxTiles = 300;
+        latticeMinTiles = 2000;
+        backgroundPlanning = false;
+        mixedTiers = false;
+        metricsOverlay = false;
         autoScanEnabled = false;
         autoScanRadius = 20;
         autoScanDrillTier = 2;
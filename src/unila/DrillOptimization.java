@@ -1,9 +1,11 @@
 package unila;
 
 import arc.struct.*;
+import arc.util.Time;
 import mindustry.type.Item;
 import mindustry.world.Tile;
 import mindustry.world.blocks.production.Drill;
+import java.util.Arrays;
 
 /**
  * Optimization algorithms for drill placement
@@ -13,50 +15,95 @@ public class DrillOptimization {
     
     /**
      * Calculate optimal drill placements for an ore field
-     * Uses a greedy algorithm with quality-based iteration limit
+     * Greedy: candidates are ranked once by the target ore under their footprint and placed best first
+     * Drills never share tiles, so a candidate keeps its full count until a neighbour takes part
+     * of its footprint and then gains nothing; the one sort never goes stale
+     * For one drill and target ore the yield in items per second is linear in the
+     * ore count (see YieldModel), so ranking by gain is ranking by yield
+     * Footprint ore counts are read from the patch's summed-area tables
+     * Large patches start from the best periodic lattice and the greedy only fills its edges
+     * The greedy plan is then refined for up to searchBudgetNanos: small patches are
+     * solved exactly, anything the exact solver could not finish goes to local search
      */
     public static void calculateOptimalPlacements(
             Drill drill, 
             Item targetOre,
             Seq<Tile> availableTiles,
-            ObjectMap<Tile, OreCount> oreCache,
+            PlanningWorkspace workspace,
             Seq<DrillPlacement> outputPlacements,
-            IntSet occupiedTiles
+            Bitboard occupiedTiles,
+            long searchBudgetNanos
     ) {
         int drillSize = drill.size;
-        int offset = -(drillSize - 1) / 2;
+        PlanGrid grid = workspace.grid;
+        OreCoverage coverage = workspace.coverage;
+        LongSeq ranked = workspace.ranked;
+        workspace.beginPlan();
+        ranked.clear();
+        workspace.candidates = 0;
+        Object event = PlannerEvents.begin(PlannerEvents.Stage.OPTIMIZE);
         
-        // Score all possible placements
-        Seq<ScoredPosition> scoredPositions = new Seq<>();
+        PlanMetrics.begin(PlanMetrics.Phase.SCORING);
+        boolean lattice = Config.latticeMinTiles > 0 && availableTiles.size >= Config.latticeMinTiles;
+        if (lattice) {
+            LatticeTiling.place(drill, targetOre, availableTiles, workspace, outputPlacements, occupiedTiles);
+        }
         
-        for (Tile tile : availableTiles) {
-            if (occupiedTiles.contains(tile.pos())) continue;
+        // Score all possible placements, tiles under lattice drills are skipped
+        for (int i = 0; i < availableTiles.size; i++) {
+            Tile tile = availableTiles.items[i];
+            if (occupiedTiles.get(tile.x, tile.y)) continue;
             
-            OreCount oreData = oreCache.get(tile);
-            if (oreData == null || oreData.ore != targetOre || oreData.count < Config.minOres) {
-                continue;
-            }
+            int oreId = coverage.bestItem(tile.x, tile.y, drillSize);
+            if (oreId == -1) continue;
             
-            if (DrillUtility.canPlaceDrill(tile, drillSize, occupiedTiles)) {
-                scoredPositions.add(new ScoredPosition(tile, oreData.count));
+            int count = coverage.count(oreId, tile.x, tile.y, drillSize);
+            workspace.setScore(grid.index(tile.x, tile.y), oreId, count);
+            
+            if (oreId != targetOre.id || count < Config.minOres) continue;
+            
+            if (DrillUtility.canPlaceDrill(grid, tile, drillSize, occupiedTiles)) {
+                ranked.add((long)(drillSize * drillSize - count) << 32 | grid.index(tile.x, tile.y));
+                workspace.candidates++;
             }
         }
+        PlanMetrics.end(PlanMetrics.Phase.SCORING);
         
-        // Sort by score (descending)
-        scoredPositions.sort(sp -> -sp.score);
+        // Best count first, ties by tile index; skip candidates an earlier pick overlaps
+        PlanMetrics.begin(PlanMetrics.Phase.GREEDY);
+        Arrays.sort(ranked.items, 0, ranked.size);
+        for (int i = 0; i < ranked.size; i++) {
+            int index = (int)ranked.items[i];
+            Tile tile = grid.tile(index);
+            if (!DrillUtility.canPlaceDrill(grid, tile, drillSize, occupiedTiles)) continue;
+            
+            outputPlacements.add(workspace.obtainPlacement(tile, workspace.scores[index]));
+            DrillUtility.markDrillArea(tile, drillSize, occupiedTiles);
+        }
+        PlanMetrics.end(PlanMetrics.Phase.GREEDY);
         
-        // Place drills greedily up to quality limit
-        int placementLimit = Math.min(scoredPositions.size, Config.optimizationQuality * 100);
+        PlanMetrics.begin(PlanMetrics.Phase.REFINE);
+        long start = Time.nanos();
+        workspace.coverageBefore = totalScore(outputPlacements);
+        // The lattice drills are fixed before the solver sees the leftovers, so its optimum would not be the patch's
+        workspace.provenOptimal = !lattice && searchBudgetNanos > 0 && availableTiles.size <= Config.exactMaxTiles
+            && workspace.exact.solve(drill, targetOre, availableTiles, workspace, outputPlacements, occupiedTiles, searchBudgetNanos);
         
-        for (int i = 0; i < placementLimit; i++) {
-            ScoredPosition position = scoredPositions.get(i);
-            
-            // Double-check placement is still valid
-            if (DrillUtility.canPlaceDrill(position.tile, drillSize, occupiedTiles)) {
-                outputPlacements.add(new DrillPlacement(position.tile, position.score));
-                DrillUtility.markDrillArea(position.tile, drillSize, occupiedTiles);
-            }
+        if (!workspace.provenOptimal) {
+            long remaining = searchBudgetNanos - Time.timeSinceNanos(start);
+            workspace.search.improve(drill, targetOre, workspace, outputPlacements, occupiedTiles, remaining);
+        }
+        workspace.coverageAfter = totalScore(outputPlacements);
+        PlanMetrics.end(PlanMetrics.Phase.REFINE);
+        PlannerEvents.end(event, availableTiles.size, drill, workspace.candidates, outputPlacements.size);
+    }
+    
+    private static int totalScore(Seq<DrillPlacement> placements) {
+        int total = 0;
+        for (int i = 0; i < placements.size; i++) {
+            total += placements.get(i).score;
         }
+        return total;
     }
     
     /**
@@ -0,0 +1,18 @@
+package unila;
+
+import mindustry.world.Tile;
+
+/**
+ * A chosen drill position and the ore count it covers
+ * Instances are pooled by PlanningWorkspace
+ */
+public class DrillPlacement {
+    public Tile tile;
+    public int score;
+    
+    public DrillPlacement set(Tile tile, int score) {
+        this.tile = tile;
+        this.score = score;
+        return this;
+    }
+}
\ No newline at end of file
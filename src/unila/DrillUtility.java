@@ -1,136 +1,173 @@
 package unila;
 
-import arc.struct.*;
 import mindustry.content.Blocks;
-import mindustry.gen.Building;
-import mindustry.type.Item;
+import mindustry.entities.units.BuildPlan;
 import mindustry.world.Block;
 import mindustry.world.Tile;
 import mindustry.world.blocks.production.Drill;
-import static mindustry.Vars.*;
+import java.util.Arrays;
 
 /**
  * Utility methods for drill placement operations
  */
 public class DrillUtility {
+    /** Buildable-tile bitmaps shared by every footprint check */
+    public static final PlaceabilityMask placeMask = new PlaceabilityMask();
+    public static final PlanFeeder feeder = new PlanFeeder();
+    /** The team's power buildings, where new fields link into the grid */
+    public static final PowerGridIndex powerIndex = new PowerGridIndex();
+    /** The loaded world, the grid every in-game plan reads */
+    public static final PlanGrid worldGrid = new WorldGrid();
     
     /**
      * Count ores that a drill can mine at a given tile
-     * @return OreCount object with the most abundant ore and its count, or null if no ores
+     * Counts are accumulated in the workspace, so nothing is allocated
+     * @return count of the most abundant ore, with its id in workspace.countedOre (-1 if no ores)
      */
-    public static OreCount countOre(Tile tile, Drill drill) {
-        ObjectIntMap<Item> oreCounts = new ObjectIntMap<>();
-        Seq<Item> items = new Seq<>();
+    public static int countOre(PlanGrid grid, Tile tile, Drill drill, PlanningWorkspace workspace) {
+        int size = drill.size;
+        int offset = PlanGrid.offset(size);
+        int bestId = -1;
+        int bestCount = 0;
         
-        // Get all tiles this drill would cover
-        Seq<Tile> linkedTiles = new Seq<>();
-        for (Tile other : tile.getLinkedTilesAs(drill, linkedTiles)) {
-            if (drill.canMine(other)) {
-                Item ore = drill.getDrop(other);
-                if (ore != null) {
-                    oreCounts.increment(ore, 0, 1);
+        // Walk the tiles this drill would cover
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int id = grid.mineable(tile.x + offset + x, tile.y + offset + y, drill);
+                if (id == -1) continue;
+                
+                if (id >= workspace.itemCounts.length) {
+                    workspace.itemCounts = Arrays.copyOf(workspace.itemCounts, id + 1);
+                }
+                
+                // Ties keep the ore seen first
+                int count = ++workspace.itemCounts[id];
+                if (count > bestCount) {
+                    bestCount = count;
+                    bestId = id;
                 }
             }
         }
         
-        if (oreCounts.size == 0) return null;
-        
-        // Find most abundant ore
-        for (Item item : oreCounts.keys()) {
-            items.add(item);
+        // Reset only the entries we touched
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int id = grid.mineable(tile.x + offset + x, tile.y + offset + y, drill);
+                if (id != -1) {
+                    workspace.itemCounts[id] = 0;
+                }
+            }
         }
         
-        items.sort((i1, i2) -> Integer.compare(oreCounts.get(i2, 0), oreCounts.get(i1, 0)));
-        
-        Item bestOre = items.first();
-        int count = oreCounts.get(bestOre, 0);
-        
-        return new OreCount(bestOre, count);
+        workspace.countedOre = bestId;
+        return bestCount;
     }
     
     /**
      * Check if a drill can be placed at the given tile
+     * Each footprint row is tested with a few word operations on the bitboards
      */
-    public static boolean canPlaceDrill(Tile center, int drillSize, IntSet occupiedTiles) {
-        int offset = -(drillSize - 1) / 2;
-        
-        for (int x = 0; x < drillSize; x++) {
-            for (int y = 0; y < drillSize; y++) {
-                Tile tile = world.tile(center.x + offset + x, center.y + offset + y);
-                
-                if (tile == null) return false;
-                if (occupiedTiles.contains(tile.pos())) return false;
-                if (!Building.validPlace(Blocks.copperWall, player.team(), tile.x, tile.y, 0)) return false;
-            }
-        }
-        
-        return true;
+    public static boolean canPlaceDrill(PlanGrid grid, Tile center, int drillSize, Bitboard occupiedTiles) {
+        return canPlaceFootprint(grid, center.x, center.y, drillSize, occupiedTiles);
     }
     
     /**
      * Mark all tiles a drill occupies as used
      */
-    public static void markDrillArea(Tile center, int drillSize, IntSet occupiedTiles) {
-        int offset = -(drillSize - 1) / 2;
+    public static void markDrillArea(Tile center, int drillSize, Bitboard occupiedTiles) {
+        markFootprint(center.x, center.y, drillSize, occupiedTiles);
+    }
+    
+    /**
+     * Free the tiles of a drill that was taken out of a plan
+     */
+    public static void clearDrillArea(Tile center, int drillSize, Bitboard occupiedTiles) {
+        int offset = PlanGrid.offset(drillSize);
+        int x0 = Math.max(center.x + offset, 0);
+        int y0 = Math.max(center.y + offset, 0);
+        int x1 = Math.min(center.x + offset + drillSize, occupiedTiles.width());
+        int y1 = Math.min(center.y + offset + drillSize, occupiedTiles.height());
         
-        for (int x = 0; x < drillSize; x++) {
-            for (int y = 0; y < drillSize; y++) {
-                Tile tile = world.tile(center.x + offset + x, center.y + offset + y);
-                if (tile != null) {
-                    occupiedTiles.add(tile.pos());
-                }
-            }
+        if (x0 < x1 && y0 < y1) {
+            occupiedTiles.clearRect(x0, y0, x1 - x0, y1 - y0);
         }
     }
     
     /**
      * Check if a block can be placed at the given location
      */
-    public static boolean canPlaceBlock(Tile center, Block block, IntSet occupiedTiles) {
-        int size = block.size;
-        int offset = -(size - 1) / 2;
+    public static boolean canPlaceBlock(PlanGrid grid, Tile center, Block block, Bitboard occupiedTiles) {
+        return canPlaceFootprint(grid, center.x, center.y, block.size, occupiedTiles);
+    }
+    
+    /**
+     * Mark all tiles a block occupies as used
+     */
+    public static void markBlockArea(Tile center, int blockSize, Bitboard occupiedTiles) {
+        markFootprint(center.x, center.y, blockSize, occupiedTiles);
+    }
+    
+    private static boolean canPlaceFootprint(PlanGrid grid, int centerX, int centerY, int size, Bitboard occupiedTiles) {
+        int offset = PlanGrid.offset(size);
+        int x0 = centerX + offset;
+        int y0 = centerY + offset;
         
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Tile tile = world.tile(center.x + offset + x, center.y + offset + y);
-                
-                if (tile == null) return false;
-                if (occupiedTiles.contains(tile.pos())) return false;
-                if (!Building.validPlace(block, player.team(), tile.x, tile.y, 0)) return false;
-            }
+        if (x0 < 0 || y0 < 0 || x0 + size > grid.width() || y0 + size > grid.height()) return false;
+        
+        for (int row = 0; row < size; row++) {
+            if (occupiedTiles.anySet(x0, y0 + row, size)) return false;
+            if (!grid.placeableSpan(x0, y0 + row, size)) return false;
         }
         
         return true;
     }
     
-    /**
-     * Mark all tiles a block occupies as used
-     */
-    public static void markBlockArea(Tile center, int blockSize, IntSet occupiedTiles) {
-        int offset = -(blockSize - 1) / 2;
+    private static void markFootprint(int centerX, int centerY, int size, Bitboard occupiedTiles) {
+        int offset = PlanGrid.offset(size);
+        int x0 = Math.max(centerX + offset, 0);
+        int y0 = Math.max(centerY + offset, 0);
+        int x1 = Math.min(centerX + offset + size, occupiedTiles.width());
+        int y1 = Math.min(centerY + offset + size, occupiedTiles.height());
         
-        for (int x = 0; x < blockSize; x++) {
-            for (int y = 0; y < blockSize; y++) {
-                Tile tile = world.tile(center.x + offset + x, center.y + offset + y);
-                if (tile != null) {
-                    occupiedTiles.add(tile.pos());
-                }
-            }
+        if (x0 < x1 && y0 < y1) {
+            occupiedTiles.setRect(x0, y0, x1 - x0, y1 - y0);
         }
     }
     
+    /**
+     * Fresh grid-sized occupancy bitboard, reusing the given one when possible
+     */
+    public static Bitboard resetOccupancy(PlanGrid grid, Bitboard occupiedTiles) {
+        occupiedTiles.resize(grid.width(), grid.height());
+        return occupiedTiles;
+    }
+    
+    /**
+     * Queue a build plan for the player and reserve its footprint
+     * The plan waits in the feeder until the unit's own queue has room
+     */
+    public static void queueBuild(int x, int y, Block block) {
+        queueBuild(x, y, 0, block, null);
+    }
+    
+    public static void queueBuild(int x, int y, int rotation, Block block, Object config) {
+        BuildPlan plan = new BuildPlan(x, y, rotation, block, config);
+        feeder.add(plan);
+        placeMask.reserve(plan);
+    }
+    
     /**
      * Find nearest empty spot for placing a block
      */
-    public static Tile findNearestEmpty(int centerX, int centerY, int blockSize, IntSet occupiedTiles) {
+    public static Tile findNearestEmpty(PlanGrid grid, int centerX, int centerY, int blockSize, Bitboard occupiedTiles) {
         for (int radius = 1; radius < 15; radius++) {
             for (int dx = -radius; dx <= radius; dx++) {
                 for (int dy = -radius; dy <= radius; dy++) {
                     if (Math.abs(dx) + Math.abs(dy) != radius) continue;
                     
-                    Tile tile = world.tile(centerX + dx, centerY + dy);
-                    if (tile != null && canPlaceBlock(tile, Blocks.waterExtractor, occupiedTiles)) {
-                        return tile;
+                    int x = centerX + dx, y = centerY + dy;
+                    if (canPlaceFootprint(grid, x, y, blockSize, occupiedTiles)) {
+                        return grid.tile(x, y);
                     }
                 }
             }
@@ -0,0 +1,176 @@
+package unila;
+
+import arc.struct.*;
+import arc.util.Time;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import java.util.Arrays;
+
+/**
+ * Branch and bound drill placement for small patches
+ * Candidates are visited in row-major order, so ore before the current candidate's
+ * footprint can no longer be covered; the ore left after it bounds each branch
+ */
+public class ExactSolver {
+    private static final int NODE_LIMIT = 250_000;
+    
+    // Candidate tile indices in row-major order and suffix sums of their gains
+    private int[] candidates = new int[64];
+    private int[] gainSuffix = new int[65];
+    private int count;
+    
+    // Drills of the branch being explored and of the best plan found
+    private int[] chosen = new int[32];
+    private int depth;
+    private int[] best = new int[32];
+    private int bestSize;
+    private int bestCoverage;
+    
+    private final Bitboard occupied = new Bitboard();
+    private PlanningWorkspace workspace;
+    private PlanGrid grid;
+    private int size, offset, targetId, width;
+    private long start, timeLimitNanos;
+    private int nodes;
+    private boolean aborted;
+    
+    /**
+     * Search for the placement covering the most ore, starting from the greedy plan
+     * The placements and occupancy are replaced when a better plan is found
+     * @return true if the search finished, so the plan is optimal
+     */
+    public boolean solve(Drill drill, Item targetOre, Seq<Tile> availableTiles, PlanningWorkspace workspace,
+                         Seq<DrillPlacement> placements, Bitboard occupiedTiles, long timeLimitNanos) {
+        this.workspace = workspace;
+        this.size = drill.size;
+        this.offset = -(size - 1) / 2;
+        this.targetId = targetOre.id;
+        this.grid = workspace.grid;
+        this.width = grid.width();
+        this.timeLimitNanos = timeLimitNanos;
+        
+        count = 0;
+        for (int i = 0; i < availableTiles.size; i++) {
+            Tile tile = availableTiles.items[i];
+            int index = grid.index(tile.x, tile.y);
+            if (workspace.oreIds[index] != targetId || workspace.scores[index] < Config.minOres) continue;
+            
+            if (count == candidates.length) {
+                candidates = Arrays.copyOf(candidates, count * 2);
+            }
+            candidates[count++] = index;
+        }
+        Arrays.sort(candidates, 0, count);
+        
+        if (gainSuffix.length < count + 1) {
+            gainSuffix = new int[candidates.length + 1];
+        }
+        gainSuffix[count] = 0;
+        for (int k = count - 1; k >= 0; k--) {
+            gainSuffix[k] = gainSuffix[k + 1] + workspace.scores[candidates[k]];
+        }
+        
+        // The greedy plan is the first incumbent
+        bestSize = 0;
+        bestCoverage = 0;
+        for (int i = 0; i < placements.size; i++) {
+            DrillPlacement placement = placements.get(i);
+            best = push(best, bestSize++, grid.index(placement.tile.x, placement.tile.y));
+            bestCoverage += placement.score;
+        }
+        int greedyCoverage = bestCoverage;
+        
+        DrillUtility.resetOccupancy(grid, occupied);
+        depth = 0;
+        nodes = 0;
+        aborted = false;
+        start = Time.nanos();
+        branch(0, 0);
+        
+        if (bestCoverage > greedyCoverage) {
+            for (int i = 0; i < placements.size; i++) {
+                DrillUtility.clearDrillArea(placements.get(i).tile, size, occupiedTiles);
+            }
+            workspace.freePlacements(placements);
+            
+            for (int i = 0; i < bestSize; i++) {
+                Tile tile = grid.tile(best[i]);
+                placements.add(workspace.obtainPlacement(tile, workspace.scores[best[i]]));
+                DrillUtility.markDrillArea(tile, size, occupiedTiles);
+            }
+        }
+        
+        this.workspace = null;
+        this.grid = null;
+        return !aborted;
+    }
+    
+    /**
+     * Take or skip candidate k
+     */
+    private void branch(int k, int current) {
+        if (current > bestCoverage) {
+            bestCoverage = current;
+            bestSize = depth;
+            if (best.length < depth) {
+                best = new int[chosen.length];
+            }
+            System.arraycopy(chosen, 0, best, 0, depth);
+        }
+        if (k == count || aborted) return;
+        
+        if (++nodes > NODE_LIMIT || ((nodes & 1023) == 0 && Time.timeSinceNanos(start) > timeLimitNanos)) {
+            aborted = true;
+            return;
+        }
+        
+        int index = candidates[k];
+        int cornerX = index % width + offset;
+        int cornerY = index / width + offset;
+        if (current + Math.min(gainSuffix[k], uncoveredFrom(cornerX, cornerY)) <= bestCoverage) return;
+        
+        Tile tile = grid.tile(index);
+        if (DrillUtility.canPlaceDrill(grid, tile, size, occupied)) {
+            DrillUtility.markDrillArea(tile, size, occupied);
+            chosen = push(chosen, depth++, index);
+            branch(k + 1, current + workspace.scores[index]);
+            depth--;
+            DrillUtility.clearDrillArea(tile, size, occupied);
+        }
+        
+        branch(k + 1, current);
+    }
+    
+    /**
+     * Target ore at or after (px, py) in row-major order not yet under a chosen drill
+     */
+    private int uncoveredFrom(int px, int py) {
+        OreCoverage coverage = workspace.coverage;
+        int maxX = grid.width() - 1, maxY = grid.height() - 1;
+        int remaining = coverage.countRect(targetId, 0, py + 1, maxX, maxY) + coverage.countRect(targetId, px, py, maxX, py);
+        
+        // Chosen drills are in row-major order, stop at the first one ending above row py
+        for (int i = depth - 1; i >= 0; i--) {
+            int x0 = chosen[i] % width + offset;
+            int y0 = chosen[i] / width + offset;
+            int x1 = x0 + size - 1, y1 = y0 + size - 1;
+            if (y1 < py) break;
+            
+            remaining -= coverage.countRect(targetId, x0, Math.max(y0, py + 1), x1, y1);
+            if (y0 <= py) {
+                remaining -= coverage.countRect(targetId, Math.max(x0, px), py, x1, py);
+            }
+        }
+        
+        return remaining;
+    }
+    
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package unila;
+
+import java.util.Arrays;
+
+/**
+ * Bucket priority queue of indices keyed by a small integer gain
+ * Gains are bounded by the caller, e.g. the drills one power node may link, so push and poll are O(1)
+ * Entries with equal gain come out in insertion order
+ */
+public class GainQueue {
+    private int[] heads = new int[32];
+    private int[] tails = new int[32];
+    // Singly linked entries, one slot per push
+    private int[] values = new int[256];
+    private int[] next = new int[256];
+    private int slotCount;
+    private int maxGain;
+    private int top;
+    private int size;
+    
+    /**
+     * Empty the queue and accept gains in [0, maxGain]
+     */
+    public void reset(int maxGain) {
+        if (heads.length < maxGain + 1) {
+            heads = new int[maxGain + 1];
+            tails = new int[maxGain + 1];
+        }
+        
+        Arrays.fill(heads, 0, maxGain + 1, -1);
+        this.maxGain = maxGain;
+        top = -1;
+        size = 0;
+        slotCount = 0;
+    }
+    
+    public void push(int value, int gain) {
+        gain = Math.min(Math.max(gain, 0), maxGain);
+        
+        if (slotCount == values.length) {
+            values = Arrays.copyOf(values, slotCount * 2);
+            next = Arrays.copyOf(next, slotCount * 2);
+        }
+        
+        int slot = slotCount++;
+        values[slot] = value;
+        next[slot] = -1;
+        
+        if (heads[gain] == -1) {
+            heads[gain] = slot;
+        } else {
+            next[tails[gain]] = slot;
+        }
+        tails[gain] = slot;
+        
+        top = Math.max(top, gain);
+        size++;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Gain of the entry poll() would return next, -1 when empty
+     */
+    public int topGain() {
+        while (top >= 0 && heads[top] == -1) top--;
+        return top;
+    }
+    
+    /**
+     * Remove the oldest entry with the highest gain and return its value
+     * Call topGain() first if the gain it was queued with is needed
+     */
+    public int poll() {
+        int gain = topGain();
+        if (gain == -1) return -1;
+        
+        int slot = heads[gain];
+        heads[gain] = next[slot];
+        size--;
+        return values[slot];
+    }
+}
\ No newline at end of file
@@ -1,78 +1,80 @@
 package unila;
 
-import arc.math.geom.Point2;
 import arc.struct.*;
 import mindustry.content.Blocks;
-import mindustry.gen.BuildPlan;
 import mindustry.world.Block;
-import mindustry.world.Edges;
 import mindustry.world.Tile;
+import mindustry.world.blocks.power.PowerNode;
 import mindustry.world.blocks.production.Drill;
-import static mindustry.Vars.*;
+import mindustry.world.blocks.production.SolidPump;
 
 /**
  * Handles placement of supporting infrastructure:
  * - Water extractors
  * - Power nodes  
  * - Pipes/conduits
+ * Stages only queue plans and return counts, the caller reports them
+ * Each instance keeps its own planner buffers, one per planning thread
+ * Every stage takes the plan's occupancy, already holding its drills, and marks what it queues,
+ * so later stages and tiers plan around it
  */
 public class InfrastructurePlacer {
+    private final ConduitRouter conduitRouter = new ConduitRouter();
+    private final PowerPlanner powerPlanner = new PowerPlanner();
+    private final WaterPlanner waterPlanner = new WaterPlanner();
     
     /**
-     * Place water extractors near each drill
+     * Place the fewest water extractors that cover every drill's boost, shared between neighbouring drills
+     * @return number of extractors queued
      */
-    public static void placeExtractors(Seq<DrillPlacement> drillPlacements, Drill drill) {
-        Block extractor = Blocks.waterExtractor;
-        IntSet occupiedTiles = new IntSet();
-        int placedCount = 0;
+    public int placeExtractors(PlanGrid grid, Seq<DrillPlacement> drillPlacements, Drill drill, Bitboard occupiedTiles) {
+        if (drillPlacements.isEmpty()) return 0;
         
-        for (DrillPlacement placement : drillPlacements) {
-            Tile bestSpot = findAdjacentSpot(placement.tile, drill.size, extractor, occupiedTiles);
-            
-            if (bestSpot != null) {
-                player.unit().addBuild(new BuildPlan(bestSpot.x, bestSpot.y, 0, extractor));
-                DrillUtility.markBlockArea(bestSpot, extractor.size, occupiedTiles);
-                placedCount++;
-            }
-        }
-        
-        if (placedCount > 0) {
-            ui.showInfoToast("+ " + placedCount + " water extractors", 1.5f);
-        }
+        return waterPlanner.plan(grid, drillPlacements, drill, (SolidPump)Blocks.waterExtractor, occupiedTiles);
     }
     
     /**
-     * Place power nodes near each drill
+     * Extractor output minus boost consumption of the last placeExtractors, per second
      */
-    public static void placePowerNodes(Seq<DrillPlacement> drillPlacements, Drill drill) {
-        Block powerNode = Blocks.powerNode;
-        IntSet occupiedTiles = new IntSet();
-        int placedCount = 0;
-        
-        for (DrillPlacement placement : drillPlacements) {
-            Tile bestSpot = findAdjacentSpot(placement.tile, drill.size, powerNode, occupiedTiles);
-            
-            if (bestSpot != null) {
-                player.unit().addBuild(new BuildPlan(bestSpot.x, bestSpot.y, 0, powerNode));
-                DrillUtility.markBlockArea(bestSpot, powerNode.size, occupiedTiles);
-                placedCount++;
-            }
-        }
+    public float waterBalance() {
+        return waterPlanner.balance();
+    }
+    
+    /**
+     * Drills the last placeExtractors could not fully feed
+     */
+    public int underfedDrills() {
+        return waterPlanner.underfed();
+    }
+    
+    /**
+     * Place the fewest power nodes that reach every drill, linked into one graph
+     * In the loaded world the graph is also chained to the nearest powered building of the team
+     * @return number of power nodes queued
+     */
+    public int placePowerNodes(PlanGrid grid, Seq<DrillPlacement> drillPlacements, Drill drill, Bitboard occupiedTiles) {
+        if (drillPlacements.isEmpty()) return 0;
         
-        if (placedCount > 0) {
-            ui.showInfoToast("+ " + placedCount + " power nodes", 1.5f);
-        }
+        PowerGridIndex existing = grid == DrillUtility.worldGrid ? DrillUtility.powerIndex : null;
+        return powerPlanner.plan(grid, drillPlacements, drill.size, (PowerNode)Blocks.powerNode, occupiedTiles, existing);
+    }
+    
+    /**
+     * Node graphs the last placePowerNodes left without a link to a powered building, 0 when all are powered
+     */
+    public int unpoweredIslands() {
+        return powerPlanner.unpoweredIslands();
     }
     
     /**
      * Connect drills with pipes to a central water source
+     * The pipes form one tree, see ConduitRouter
+     * @return number of drills connected, the rest have no free path to the source
      */
-    public static void connectWithPipes(Seq<DrillPlacement> drillPlacements, Drill drill) {
-        if (drillPlacements.isEmpty()) return;
+    public int connectWithPipes(PlanGrid grid, Seq<DrillPlacement> drillPlacements, Drill drill, Bitboard occupiedTiles) {
+        if (drillPlacements.isEmpty()) return 0;
         
-        Block pipe = Blocks.conduit;
         Block extractor = Blocks.waterExtractor;
-        IntSet occupiedTiles = new IntSet();
         
         // Find center point
         int centerX = 0;
@@ -85,74 +87,12 @@ public class InfrastructurePlacer {
         centerY /= drillPlacements.size;
         
         // Place water source at center
-        Tile waterSource = DrillUtility.findNearestEmpty(centerX, centerY, extractor.size, occupiedTiles);
-        if (waterSource == null) return;
+        Tile waterSource = DrillUtility.findNearestEmpty(grid, centerX, centerY, extractor.size, occupiedTiles);
+        if (waterSource == null) return 0;
         
-        player.unit().addBuild(new BuildPlan(waterSource.x, waterSource.y, 0, extractor));
+        grid.queue(waterSource.x, waterSource.y, extractor);
         DrillUtility.markBlockArea(waterSource, extractor.size, occupiedTiles);
         
-        // Connect each drill to water source with pipes
-        int pipeCount = 0;
-        for (DrillPlacement placement : drillPlacements) {
-            if (connectPipePath(waterSource, placement.tile, pipe, occupiedTiles)) {
-                pipeCount++;
-            }
-        }
-        
-        if (pipeCount > 0) {
-            ui.showInfoToast("+ " + pipeCount + " pipe connections", 1.5f);
-        }
-    }
-    
-    /**
-     * Find adjacent spot for placing infrastructure
-     */
-    private static Tile findAdjacentSpot(Tile drillTile, int drillSize, Block block, IntSet occupiedTiles) {
-        Point2[] edges = Edges.getEdges(drillSize);
-        
-        for (Point2 edge : edges) {
-            Tile candidate = world.tile(drillTile.x + edge.x, drillTile.y + edge.y);
-            
-            if (candidate != null && DrillUtility.canPlaceBlock(candidate, block, occupiedTiles)) {
-                return candidate;
-            }
-        }
-        
-        return null;
-    }
-    
-    /**
-     * Connect two points with pipes using Manhattan path
-     */
-    private static boolean connectPipePath(Tile from, Tile to, Block pipe, IntSet occupiedTiles) {
-        int currentX = from.x;
-        int currentY = from.y;
-        int targetX = to.x;
-        int targetY = to.y;
-        boolean placedAny = false;
-        
-        while (currentX != targetX || currentY != targetY) {
-            // Move towards target
-            if (currentX < targetX) {
-                currentX++;
-            } else if (currentX > targetX) {
-                currentX--;
-            } else if (currentY < targetY) {
-                currentY++;
-            } else if (currentY > targetY) {
-                currentY--;
-            }
-            
-            Tile current = world.tile(currentX, currentY);
-            if (current != null && !occupiedTiles.contains(current.pos())) {
-                if (DrillUtility.canPlaceBlock(current, pipe, occupiedTiles)) {
-                    player.unit().addBuild(new BuildPlan(currentX, currentY, 0, pipe));
-                    occupiedTiles.add(current.pos());
-                    placedAny = true;
-                }
-            }
-        }
-        
-        return placedAny;
+        return conduitRouter.route(grid, waterSource, extractor.size, drillPlacements, drill.size, occupiedTiles);
     }
 }
\ No newline at end of file
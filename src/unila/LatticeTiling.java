@@ -0,0 +1,101 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+
+/**
+ * Periodic drill lattices for large, dense ore fields
+ * An N x N drill tiles the plane in N * N offsets, plus N * N more with every
+ * other row shifted by half a drill; each is scored with one table read per drill
+ */
+public class LatticeTiling {
+    
+    /**
+     * Place the best lattice over the patch bounding box
+     * Only the winning lattice has its drills checked for placeability, the
+     * greedy pass afterwards fills the edges and holes around it
+     * @return ore covered by the placed drills
+     */
+    public static int place(Drill drill, Item targetOre, Seq<Tile> availableTiles, PlanningWorkspace workspace,
+                            Seq<DrillPlacement> outputPlacements, Bitboard occupiedTiles) {
+        if (availableTiles.isEmpty()) return 0;
+        
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < availableTiles.size; i++) {
+            Tile tile = availableTiles.items[i];
+            minX = Math.min(minX, tile.x);
+            minY = Math.min(minY, tile.y);
+            maxX = Math.max(maxX, tile.x);
+            maxY = Math.max(maxY, tile.y);
+        }
+        
+        int size = drill.size;
+        int bestScore = -1, bestX = 0, bestY = 0;
+        boolean bestStaggered = false;
+        
+        for (int staggered = 0; staggered < (size > 1 ? 2 : 1); staggered++) {
+            for (int offsetY = 0; offsetY < size; offsetY++) {
+                for (int offsetX = 0; offsetX < size; offsetX++) {
+                    int score = walk(drill, targetOre, workspace, null, null,
+                        minX, minY, maxX, maxY, offsetX, offsetY, staggered == 1);
+                    
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestX = offsetX;
+                        bestY = offsetY;
+                        bestStaggered = staggered == 1;
+                    }
+                }
+            }
+        }
+        
+        return walk(drill, targetOre, workspace, outputPlacements, occupiedTiles,
+            minX, minY, maxX, maxY, bestX, bestY, bestStaggered);
+    }
+    
+    /**
+     * Visit every lattice point in the box
+     * Without an output list the ore under each point is only summed,
+     * with one the valid drills are placed and marked
+     */
+    private static int walk(Drill drill, Item targetOre, PlanningWorkspace workspace,
+                            Seq<DrillPlacement> output, Bitboard occupiedTiles,
+                            int minX, int minY, int maxX, int maxY, int offsetX, int offsetY, boolean staggered) {
+        OreCoverage coverage = workspace.coverage;
+        int size = drill.size;
+        int total = 0;
+        int row = 0;
+        
+        for (int y = firstAtOrAbove(minY, offsetY, size); y <= maxY; y += size, row++) {
+            int shift = staggered && (row & 1) == 1 ? size / 2 : 0;
+            
+            for (int x = firstAtOrAbove(minX, offsetX + shift, size); x <= maxX; x += size) {
+                int count = coverage.count(targetOre.id, x, y, size);
+                if (count < Config.minOres) continue;
+                
+                if (output != null) {
+                    Tile tile = workspace.grid.tile(x, y);
+                    if (tile == null || coverage.bestItem(x, y, size) != targetOre.id) continue;
+                    if (!DrillUtility.canPlaceDrill(workspace.grid, tile, size, occupiedTiles)) continue;
+                    
+                    workspace.setScore(workspace.grid.index(x, y), targetOre.id, count);
+                    output.add(workspace.obtainPlacement(tile, count));
+                    DrillUtility.markDrillArea(tile, size, occupiedTiles);
+                }
+                total += count;
+            }
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Smallest value at or above min that is congruent to offset modulo step
+     */
+    private static int firstAtOrAbove(int min, int offset, int step) {
+        return min + Math.floorMod(offset - min, step);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package unila;
+
+import arc.math.Rand;
+import arc.struct.*;
+import arc.util.Time;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import java.util.Arrays;
+
+/**
+ * Anytime local search over a greedy drill plan
+ * Each move rips up the drills around a random drill and refills the hole greedily,
+ * the move is kept when total ore coverage does not drop, otherwise undone
+ * The plan is valid after every move, so stopping at any time keeps the best one found
+ */
+public class LocalSearch {
+    private static final long SEED = 0x5eedL;
+    
+    // Current plan, drill tile indices (x + y * width) and the ore each covers
+    private int[] plan = new int[128];
+    private int[] gains = new int[128];
+    private int planSize;
+    
+    // Drills taken out by the move being evaluated
+    private int[] removed = new int[16];
+    private int[] removedGains = new int[16];
+    private int removedCount;
+    
+    private final Rand rand = new Rand();
+    private PlanGrid grid;
+    
+    /** Moves tried by the last search */
+    public int moves;
+    
+    /**
+     * Improve the placements in place until the budget runs out
+     * The occupancy board must hold the footprints of the given placements; it may also hold other
+     * reserved cells, e.g. earlier tiers and their infrastructure, which are planned around and never ripped up
+     */
+    public void improve(Drill drill, Item targetOre, PlanningWorkspace workspace,
+                        Seq<DrillPlacement> placements, Bitboard occupiedTiles, long budgetNanos) {
+        long start = Time.nanos();
+        grid = workspace.grid;
+        int size = drill.size;
+        int width = grid.width();
+        
+        moves = 0;
+        if (budgetNanos <= 0) return;
+        
+        planSize = 0;
+        for (int i = 0; i < placements.size; i++) {
+            DrillPlacement placement = placements.get(i);
+            append(grid.index(placement.tile.x, placement.tile.y), placement.score);
+        }
+        rand.setSeed(SEED);
+        
+        while (planSize > 0 && Time.timeSinceNanos(start) < budgetNanos) {
+            moves++;
+            
+            // Window around a random drill, one or two drill widths each way
+            int pick = rand.nextInt(planSize);
+            int cx = plan[pick] % width;
+            int cy = plan[pick] / width;
+            int radius = size * (1 + rand.nextInt(2));
+            
+            int removedGain = ripUp(cx, cy, radius, size, width, occupiedTiles);
+            int insertedFrom = planSize;
+            int insertedGain = refill(cx, cy, radius + size, size, targetOre.id, workspace, occupiedTiles);
+            
+            if (insertedGain >= removedGain) continue;
+            
+            // Worse, put the old drills back
+            for (int i = insertedFrom; i < planSize; i++) {
+                DrillUtility.clearDrillArea(grid.tile(plan[i]), size, occupiedTiles);
+            }
+            planSize = insertedFrom;
+            
+            for (int i = 0; i < removedCount; i++) {
+                DrillUtility.markDrillArea(grid.tile(removed[i]), size, occupiedTiles);
+                append(removed[i], removedGains[i]);
+            }
+        }
+        
+        workspace.freePlacements(placements);
+        for (int i = 0; i < planSize; i++) {
+            placements.add(workspace.obtainPlacement(grid.tile(plan[i]), gains[i]));
+        }
+    }
+    
+    /**
+     * Take every drill centered inside the window out of the plan
+     * @return ore the removed drills covered
+     */
+    private int ripUp(int cx, int cy, int radius, int size, int width, Bitboard occupiedTiles) {
+        removedCount = 0;
+        int removedGain = 0;
+        
+        // Walk backwards so the entry swapped into slot i has already been checked
+        for (int i = planSize - 1; i >= 0; i--) {
+            int x = plan[i] % width;
+            int y = plan[i] / width;
+            if (Math.abs(x - cx) > radius || Math.abs(y - cy) > radius) continue;
+            
+            if (removedCount == removed.length) {
+                removed = Arrays.copyOf(removed, removedCount * 2);
+                removedGains = Arrays.copyOf(removedGains, removedCount * 2);
+            }
+            removed[removedCount] = plan[i];
+            removedGains[removedCount] = gains[i];
+            removedCount++;
+            removedGain += gains[i];
+            
+            DrillUtility.clearDrillArea(grid.tile(plan[i]), size, occupiedTiles);
+            planSize--;
+            plan[i] = plan[planSize];
+            gains[i] = gains[planSize];
+        }
+        
+        return removedGain;
+    }
+    
+    /**
+     * Greedily place drills inside the window, picking randomly between equal gains
+     * so repeated moves explore different layouts of the same coverage
+     * @return ore the inserted drills cover
+     */
+    private int refill(int cx, int cy, int radius, int size, int targetId, PlanningWorkspace workspace, Bitboard occupiedTiles) {
+        int x0 = Math.max(cx - radius, 0), x1 = Math.min(cx + radius, grid.width() - 1);
+        int y0 = Math.max(cy - radius, 0), y1 = Math.min(cy + radius, grid.height() - 1);
+        int width = grid.width();
+        int insertedGain = 0;
+        
+        while (true) {
+            int best = -1;
+            int bestGain = Config.minOres;
+            int ties = 0;
+            
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int index = x + y * width;
+                    int gain = workspace.scores[index];
+                    if (workspace.oreIds[index] != targetId || gain < bestGain) continue;
+                    
+                    Tile tile = grid.tile(index);
+                    if (!DrillUtility.canPlaceDrill(grid, tile, size, occupiedTiles)) continue;
+                    
+                    if (gain > bestGain || best == -1) {
+                        best = index;
+                        bestGain = gain;
+                        ties = 1;
+                    } else if (rand.nextInt(++ties) == 0) {
+                        best = index;
+                    }
+                }
+            }
+            
+            if (best == -1) return insertedGain;
+            
+            DrillUtility.markDrillArea(grid.tile(best), size, occupiedTiles);
+            append(best, bestGain);
+            insertedGain += bestGain;
+        }
+    }
+    
+    private void append(int index, int gain) {
+        if (planSize == plan.length) {
+            plan = Arrays.copyOf(plan, planSize * 2);
+            gains = Arrays.copyOf(gains, planSize * 2);
+        }
+        plan[planSize] = index;
+        gains[planSize] = gain;
+        planSize++;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import java.util.Arrays;
+import static mindustry.Vars.*;
+
+/**
+ * Summed-area tables of mineable ore over an ore patch
+ * Built once per patch so the ore count under any drill footprint is four array reads
+ */
+public class OreCoverage {
+    private int originX, originY;
+    private int width, height;
+    
+    // Item id of every cell in the region, -1 when the drill cannot mine it
+    private short[] cells = new short[0];
+    
+    // One summed-area table per item present in the region, (width + 1) * (height + 1) entries each
+    private final IntSeq itemIds = new IntSeq(4);
+    private final Seq<int[]> tables = new Seq<>(4);
+    private final Seq<int[]> tablePool = new Seq<>(4);
+    
+    /**
+     * Build the tables for the bounding box of the given tiles
+     * The box is padded so every footprint centered on one of the tiles is covered
+     */
+    public void build(PlanGrid grid, Seq<Tile> tiles, Drill drill) {
+        clear();
+        if (tiles.isEmpty()) return;
+        
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Tile tile : tiles) {
+            minX = Math.min(minX, tile.x);
+            minY = Math.min(minY, tile.y);
+            maxX = Math.max(maxX, tile.x);
+            maxY = Math.max(maxY, tile.y);
+        }
+        
+        int offset = PlanGrid.offset(drill.size);
+        setRegion(
+            Math.max(minX + offset, 0),
+            Math.max(minY + offset, 0),
+            Math.min(maxX + offset + drill.size - 1, grid.width() - 1),
+            Math.min(maxY + offset + drill.size - 1, grid.height() - 1)
+        );
+        
+        // Classify every cell once
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                setCell(x, y, grid.mineable(originX + x, originY + y, drill));
+            }
+        }
+        
+        integrate();
+    }
+    
+    private void setRegion(int minX, int minY, int maxX, int maxY) {
+        originX = minX;
+        originY = minY;
+        width = maxX - minX + 1;
+        height = maxY - minY + 1;
+        
+        if (cells.length < width * height) {
+            cells = new short[width * height];
+        }
+    }
+    
+    private void setCell(int x, int y, int id) {
+        cells[x + y * width] = (short)id;
+        if (id != -1 && !itemIds.contains(id)) {
+            itemIds.add(id);
+            tables.add(obtainTable());
+        }
+    }
+    
+    private void integrate() {
+        // Integrate each item's table
+        int stride = width + 1;
+        for (int i = 0; i < itemIds.size; i++) {
+            int id = itemIds.get(i);
+            int[] table = tables.get(i);
+            
+            for (int y = 0; y < height; y++) {
+                int rowSum = 0;
+                for (int x = 0; x < width; x++) {
+                    if (cells[x + y * width] == id) rowSum++;
+                    table[(x + 1) + (y + 1) * stride] = rowSum + table[(x + 1) + y * stride];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Count tiles of the given item under a footprint centered on (x, y)
+     */
+    public int count(int itemId, int x, int y, int size) {
+        int offset = -(size - 1) / 2;
+        return countRect(itemId, x + offset, y + offset, x + offset + size - 1, y + offset + size - 1);
+    }
+    
+    /**
+     * Count tiles of the given item in [minX, maxX] x [minY, maxY], clipped to the region
+     */
+    public int countRect(int itemId, int minX, int minY, int maxX, int maxY) {
+        int index = itemIds.indexOf(itemId);
+        if (index == -1) return 0;
+        
+        int x0 = Math.max(minX - originX, 0);
+        int y0 = Math.max(minY - originY, 0);
+        int x1 = Math.min(maxX + 1 - originX, width);
+        int y1 = Math.min(maxY + 1 - originY, height);
+        if (x0 >= x1 || y0 >= y1) return 0;
+        
+        int[] table = tables.get(index);
+        int stride = width + 1;
+        return table[x1 + y1 * stride] - table[x0 + y1 * stride] - table[x1 + y0 * stride] + table[x0 + y0 * stride];
+    }
+    
+    /**
+     * Most abundant item under a footprint centered on (x, y)
+     * @return item id, or -1 if the footprint covers no mineable ore
+     */
+    public int bestItem(int x, int y, int size) {
+        int bestId = -1;
+        int bestCount = 0;
+        
+        for (int i = 0; i < itemIds.size; i++) {
+            int id = itemIds.get(i);
+            int count = count(id, x, y, size);
+            if (count > bestCount) {
+                bestCount = count;
+                bestId = id;
+            }
+        }
+        
+        return bestId;
+    }
+    
+    /**
+     * Release the tables back to the pool
+     */
+    public void clear() {
+        tablePool.addAll(tables);
+        tables.clear();
+        itemIds.clear();
+        width = height = 0;
+    }
+    
+    private int[] obtainTable() {
+        int length = (width + 1) * (height + 1);
+        
+        for (int i = 0; i < tablePool.size; i++) {
+            int[] table = tablePool.get(i);
+            if (table.length >= length) {
+                tablePool.remove(i);
+                // Only the top row and left column must start at zero, the rest is overwritten
+                Arrays.fill(table, 0, width + 2, 0);
+                for (int y = 1; y <= height; y++) {
+                    table[y * (width + 1)] = 0;
+                }
+                return table;
+            }
+        }
+        
+        return new int[length];
+    }
+}
\ No newline at end of file
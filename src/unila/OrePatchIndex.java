@@ -0,0 +1,219 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.content.Blocks;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import java.util.Arrays;
+import static mindustry.Vars.*;
+
+/**
+ * Connected-component labelling of every ore patch in the world
+ * Built once per map and kept current from tile change events
+ * Tiles connect like in the flood fill: same ore, 8-neighbours, nothing built on them,
+ * so walls and buildings split patches; team rules such as darkness are left to the caller
+ */
+public class OrePatchIndex {
+    // Tiles around a changed one whose keys are rechecked, a multiblock's event can name just its center
+    private static final int REFRESH_RADIUS = 3;
+    
+    /**
+     * One 8-connected region of a single ore
+     */
+    public static class Patch {
+        // Never reused within a world, a relabelled region gets a new id
+        public int id;
+        // Position in patches(), reused once the patch is dissolved
+        public int slot;
+        public Item item;
+        public int minX, minY, maxX, maxY;
+        // World tile indices (x + y * width) in flood order
+        public final IntSeq tiles = new IntSeq();
+        
+        public int size() {
+            return tiles.size;
+        }
+    }
+    
+    private int width, height;
+    // Patch slot per tile, -1 when the tile is not part of any patch
+    private int[] slots = new int[0];
+    // Ore key the tile was labelled with, so unrelated changes can be ignored
+    private short[] oreKeys = new short[0];
+    
+    private final Seq<Patch> patches = new Seq<>();
+    private final IntSeq freeSlots = new IntSeq();
+    private int nextId;
+    private final IntSeq seeds = new IntSeq();
+    private int[] queue = new int[1024];
+    private boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Label the whole map, called on world load
+     */
+    public void rebuild() {
+        width = world.width();
+        height = world.height();
+        int area = width * height;
+        
+        if (slots.length != area) {
+            slots = new int[area];
+            oreKeys = new short[area];
+        }
+        Arrays.fill(slots, -1);
+        patches.clear();
+        freeSlots.clear();
+        nextId = 0;
+        
+        for (int i = 0; i < area; i++) {
+            oreKeys[i] = oreKey(world.tiles.geti(i));
+        }
+        
+        for (int i = 0; i < area; i++) {
+            if (oreKeys[i] != -1 && slots[i] == -1) {
+                label(i);
+            }
+        }
+        
+        ready = true;
+    }
+    
+    /**
+     * Patch containing the tile, or null
+     */
+    public Patch patchAt(Tile tile) {
+        if (!ready || tile == null) return null;
+        
+        int slot = slots[tile.array()];
+        return slot == -1 ? null : patches.get(slot);
+    }
+    
+    /**
+     * All patches indexed by slot, freed slots hold null until reused
+     */
+    public Seq<Patch> patches() {
+        return patches;
+    }
+    
+    /**
+     * Update labels around a changed tile
+     * Only tiles whose ore key changed (new ore, mined out, block built or removed) trigger work
+     */
+    public void onTileChanged(Tile tile) {
+        if (!ready || tile == null || world.width() != width || world.height() != height) return;
+        
+        seeds.clear();
+        int x1 = Math.min(tile.x + REFRESH_RADIUS, width - 1), y1 = Math.min(tile.y + REFRESH_RADIUS, height - 1);
+        for (int y = Math.max(tile.y - REFRESH_RADIUS, 0); y <= y1; y++) {
+            for (int x = Math.max(tile.x - REFRESH_RADIUS, 0); x <= x1; x++) {
+                int index = x + y * width;
+                short key = oreKey(world.tiles.geti(index));
+                if (key == oreKeys[index]) continue;
+                
+                oreKeys[index] = key;
+                seeds.add(index);
+                dissolveAround(x, y);
+            }
+        }
+        
+        for (int i = 0; i < seeds.size; i++) {
+            int seed = seeds.get(i);
+            if (oreKeys[seed] != -1 && slots[seed] == -1) {
+                label(seed);
+            }
+        }
+    }
+    
+    /**
+     * Dissolve the tile's old patch and every neighbouring patch, their tiles become seeds to relabel
+     */
+    private void dissolveAround(int x, int y) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int nx = x + dx, ny = y + dy;
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                dissolve(slots[nx + ny * width]);
+            }
+        }
+    }
+    
+    private void dissolve(int slot) {
+        if (slot == -1) return;
+        
+        Patch patch = patches.get(slot);
+        for (int i = 0; i < patch.tiles.size; i++) {
+            int index = patch.tiles.get(i);
+            slots[index] = -1;
+            seeds.add(index);
+        }
+        
+        patches.set(slot, null);
+        freeSlots.add(slot);
+    }
+    
+    /**
+     * Breadth-first labelling of the component containing start
+     */
+    private void label(int start) {
+        Patch patch = new Patch();
+        patch.id = nextId++;
+        patch.slot = freeSlots.isEmpty() ? patches.size : freeSlots.pop();
+        patch.item = content.item(oreKeys[start]);
+        patch.minX = patch.maxX = start % width;
+        patch.minY = patch.maxY = start / width;
+        
+        if (patch.slot == patches.size) {
+            patches.add(patch);
+        } else {
+            patches.set(patch.slot, patch);
+        }
+        
+        short key = oreKeys[start];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        slots[start] = patch.slot;
+        
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % width;
+            int cy = current / width;
+            
+            patch.tiles.add(current);
+            patch.minX = Math.min(patch.minX, cx);
+            patch.minY = Math.min(patch.minY, cy);
+            patch.maxX = Math.max(patch.maxX, cx);
+            patch.maxY = Math.max(patch.maxY, cy);
+            
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0) continue;
+                    
+                    int nx = cx + dx, ny = cy + dy;
+                    if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                    
+                    int neighbor = nx + ny * width;
+                    if (slots[neighbor] != -1 || oreKeys[neighbor] != key) continue;
+                    
+                    slots[neighbor] = patch.slot;
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ore a tile contributes to a patch, -1 for none or for tiles under walls and buildings
+     * Same block rule as PlaceabilityMask, boulders and other replaceable blocks keep their ore
+     */
+    private static short oreKey(Tile tile) {
+        if (tile.drop() == null || !(tile.block() == Blocks.air || tile.block().alwaysReplace)) return -1;
+        return tile.drop().id;
+    }
+}
\ No newline at end of file
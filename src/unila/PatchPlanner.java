@@ -0,0 +1,278 @@
+package unila;
+
+import arc.struct.*;
+import arc.util.Structs;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+
+/**
+ * Plans one ore patch on a PlanGrid: flood fill, drills per tier and their infrastructure
+ * Holds no UI or thread state, so the manager runs one on the loaded world
+ * and SnapshotPlanner runs its own on an ArrayGrid copied from a snapshot
+ */
+public class PatchPlanner {
+    /**
+     * What the last plan placed, summed over drill tiers
+     */
+    public static class Report {
+        public int coverageBefore, coverageAfter;
+        public float yield;
+        public boolean optimal;
+        public int piped, unpiped;
+        public int extractors, underfed;
+        public float waterBalance;
+        public int nodes;
+        // Node graphs without power, summed over tiers
+        public int islands;
+        
+        public void clear() {
+            coverageBefore = coverageAfter = 0;
+            yield = 0f;
+            optimal = true;
+            piped = unpiped = extractors = underfed = nodes = islands = 0;
+            waterBalance = 0f;
+        }
+        
+        public void set(Report other) {
+            coverageBefore = other.coverageBefore;
+            coverageAfter = other.coverageAfter;
+            yield = other.yield;
+            optimal = other.optimal;
+            piped = other.piped;
+            unpiped = other.unpiped;
+            extractors = other.extractors;
+            underfed = other.underfed;
+            waterBalance = other.waterBalance;
+            nodes = other.nodes;
+            islands = other.islands;
+        }
+    }
+    
+    public final PlanningWorkspace workspace = new PlanningWorkspace();
+    public final InfrastructurePlacer infrastructure = new InfrastructurePlacer();
+    public final Report report = new Report();
+    
+    // Tiles of the current patch
+    public final Seq<Tile> floodTiles = new Seq<>(512);
+    // Drills of the tier planned last
+    public final Seq<DrillPlacement> placements = new Seq<>(128);
+    // One occupancy for the whole patch, every tier and infrastructure stage marks into it
+    public final Bitboard placed = new Bitboard();
+    private final Seq<Drill> tierDrills = new Seq<>(4);
+    
+    // Flood fill buffers: ring queue of x + y * width indices and a grid-sized visited bitmap
+    private int[] floodQueue = new int[1024];
+    private final Bitboard floodVisited = new Bitboard();
+    
+    /**
+     * Flood fill algorithm to find connected ore tiles
+     */
+    public void floodFill(Tile start, Item ore) {
+        PlanGrid grid = workspace.grid;
+        floodTiles.clear();
+        
+        int width = grid.width();
+        int height = grid.height();
+        floodVisited.resize(width, height);
+        
+        // Ring buffer, capacity is always a power of two
+        int mask = floodQueue.length - 1;
+        int head = 0, size = 1;
+        
+        floodQueue[0] = start.x + start.y * width;
+        floodVisited.set(start.x, start.y);
+        
+        while (size > 0 && floodTiles.size < Config.maxTiles) {
+            int current = floodQueue[head];
+            head = (head + 1) & mask;
+            size--;
+            
+            int cx = current % width;
+            int cy = current / width;
+            
+            if (grid.drop(cx, cy) != ore.id || !grid.buildable(cx, cy)) continue;
+            floodTiles.add(grid.tile(current));
+            
+            // Check adjacent tiles
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0) continue;
+                    
+                    int nx = cx + dx, ny = cy + dy;
+                    if (!floodVisited.inBounds(nx, ny) || floodVisited.get(nx, ny)) continue;
+                    floodVisited.set(nx, ny);
+                    
+                    if (size == floodQueue.length) {
+                        floodQueue = growRing(floodQueue, head);
+                        mask = floodQueue.length - 1;
+                        head = 0;
+                    }
+                    floodQueue[(head + size) & mask] = nx + ny * width;
+                    size++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Double a full ring buffer, unwrapping it so the head is at index 0
+     */
+    private static int[] growRing(int[] ring, int head) {
+        int[] grown = new int[ring.length * 2];
+        System.arraycopy(ring, head, grown, 0, ring.length - head);
+        System.arraycopy(ring, 0, grown, ring.length - head, head);
+        return grown;
+    }
+    
+    /**
+     * Empty the report and the occupancy before a plan
+     */
+    public void beginPlan() {
+        report.clear();
+        DrillUtility.resetOccupancy(workspace.grid, placed);
+    }
+    
+    /**
+     * Plan and queue drills plus infrastructure for the current flood tiles
+     * With mixed tiers the largest drills go first and each smaller size fills what is left
+     * @param searchBudgetNanos time the local search may spend refining the greedy plan, split between tiers
+     * @param power whether to plan power nodes here; off where the team's grid cannot be read
+     * @return number of drills placed
+     */
+    public int plan(Drill drill, Item ore, long searchBudgetNanos, boolean power) {
+        beginPlan();
+        
+        Seq<Drill> drills = drillsFor(drill, ore);
+        int placedCount = 0;
+        for (int i = 0; i < drills.size; i++) {
+            placedCount += placeTier(drills.get(i), ore, searchBudgetNanos / drills.size, power);
+        }
+        
+        return placedCount;
+    }
+    
+    /**
+     * Plan one drill type over the flood tiles and queue it
+     * Earlier tiers and their infrastructure are already marked in the occupancy, so a smaller tier plans around them
+     */
+    private int placeTier(Drill drill, Item ore, long searchBudgetNanos, boolean power) {
+        // Build ore coverage tables for this patch
+        workspace.freePlacements(placements);
+        PlanMetrics.begin(PlanMetrics.Phase.ORE_COUNT);
+        Object event = PlannerEvents.begin(PlannerEvents.Stage.ORE_COUNT);
+        workspace.coverage.build(workspace.grid, floodTiles, drill);
+        PlanMetrics.end(PlanMetrics.Phase.ORE_COUNT);
+        PlannerEvents.end(event, floodTiles.size, drill, 0, 0);
+        
+        // Calculate optimal placements
+        DrillOptimization.calculateOptimalPlacements(drill, ore, floodTiles, workspace, placements, placed, searchBudgetNanos);
+        
+        report.coverageBefore += workspace.coverageBefore;
+        report.coverageAfter += workspace.coverageAfter;
+        report.yield += YieldModel.planYield(drill, ore, workspace.coverageAfter, YieldModel.isBoosted(drill));
+        report.optimal &= workspace.provenOptimal;
+        
+        int placedCount = placements.size;
+        if (placedCount == 0) return 0;
+        
+        // Place drills
+        PlanMetrics.begin(PlanMetrics.Phase.SUBMIT);
+        for (DrillPlacement placement : placements) {
+            workspace.grid.queue(placement.tile.x, placement.tile.y, drill);
+        }
+        PlanMetrics.end(PlanMetrics.Phase.SUBMIT);
+        
+        placeWater(drill);
+        if (power) placePower(drill);
+        return placedCount;
+    }
+    
+    /**
+     * Drills to plan a patch with, largest first
+     * Mixed mode takes every unlocked size up to the chosen drill, using the
+     * highest-yield tier of each size, so narrow veins still get small drills
+     */
+    public Seq<Drill> drillsFor(Drill chosen, Item ore) {
+        tierDrills.clear();
+        if (!Config.mixedTiers) {
+            tierDrills.add(chosen);
+            return tierDrills;
+        }
+        
+        for (int tier = 0; DrillUtility.getDrillByTier(tier) != null; tier++) {
+            Drill drill = DrillUtility.getDrillByTier(tier);
+            if (drill.size > chosen.size || drill.tier < ore.hardness) continue;
+            if (drill != chosen && !(drill.unlockedNow() && drill.isPlaceable())) continue;
+            
+            int same = tierDrills.indexOf(other -> other.size == drill.size);
+            if (same == -1) {
+                tierDrills.add(drill);
+            } else if (fullYield(drill, ore) > fullYield(tierDrills.get(same), ore)) {
+                tierDrills.set(same, drill);
+            }
+        }
+        
+        tierDrills.sort(Structs.comparingInt(drill -> -drill.size));
+        return tierDrills;
+    }
+    
+    private static float fullYield(Drill drill, Item ore) {
+        return YieldModel.itemsPerSecond(drill, ore, drill.size * drill.size, YieldModel.isBoosted(drill));
+    }
+    
+    /**
+     * Queue extractors or pipes for the current placements
+     * They go around everything already marked in placed, which receives them in turn
+     */
+    private void placeWater(Drill drill) {
+        if (drill.liquidBoostIntensity <= 0 || !Config.placeWaterExtractors) return;
+        
+        if (Config.usePipeInput) {
+            PlanMetrics.begin(PlanMetrics.Phase.PIPES);
+            Object event = PlannerEvents.begin(PlannerEvents.Stage.PIPES);
+            int connected = infrastructure.connectWithPipes(workspace.grid, placements, drill, placed);
+            PlanMetrics.end(PlanMetrics.Phase.PIPES);
+            PlannerEvents.end(event, floodTiles.size, drill, placements.size, connected);
+            
+            report.piped += connected;
+            report.unpiped += placements.size - connected;
+        } else {
+            PlanMetrics.begin(PlanMetrics.Phase.EXTRACTORS);
+            Object event = PlannerEvents.begin(PlannerEvents.Stage.EXTRACTORS);
+            int extractors = infrastructure.placeExtractors(workspace.grid, placements, drill, placed);
+            PlanMetrics.end(PlanMetrics.Phase.EXTRACTORS);
+            PlannerEvents.end(event, floodTiles.size, drill, placements.size, extractors);
+            
+            report.extractors += extractors;
+            report.underfed += infrastructure.underfedDrills();
+            report.waterBalance += infrastructure.waterBalance();
+        }
+    }
+    
+    /**
+     * Queue power nodes for the current placements, linked to the team's grid on the loaded world
+     */
+    public void placePower(Drill drill) {
+        if (!Config.placePowerNodes || placements.isEmpty()) return;
+        
+        PlanMetrics.begin(PlanMetrics.Phase.POWER);
+        Object event = PlannerEvents.begin(PlannerEvents.Stage.POWER);
+        int nodes = infrastructure.placePowerNodes(workspace.grid, placements, drill, placed);
+        PlanMetrics.end(PlanMetrics.Phase.POWER);
+        PlannerEvents.end(event, floodTiles.size, drill, placements.size, nodes);
+        
+        report.nodes += nodes;
+        report.islands += infrastructure.unpoweredIslands();
+    }
+    
+    /**
+     * Clear all cached data
+     */
+    public void clear() {
+        workspace.coverage.clear();
+        floodTiles.clear();
+        workspace.freePlacements(placements);
+        placed.clearAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,262 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.content.Blocks;
+import mindustry.entities.units.BuildPlan;
+import mindustry.game.Team;
+import mindustry.gen.Groups;
+import mindustry.gen.Player;
+import mindustry.world.Tile;
+import static mindustry.Vars.*;
+
+/**
+ * Per-team bitmap of buildable, empty tiles
+ * A team's bitmap is filled on its first query after a world load and refreshed around each
+ * changed tile and finished build, so footprint checks are bit lookups instead of Build.validPlace calls
+ * Only the static part of placeability is cached: floor, walls, buildings and team ownership
+ * Units and enemy core radius change without tile events, the feeder checks them live before handoff
+ */
+public class PlaceabilityMask {
+    // Change events may only report a multiblock's center, so refresh a margin around it
+    private static final int REFRESH_RADIUS = 3;
+    
+    // Buildable bitmaps indexed by team id, null until first requested
+    private final Bitboard[] buildable = new Bitboard[Team.all.length];
+    // Pending build plans of the player's team, and the tiles they cover
+    private final PlanIndex plans = new PlanIndex();
+    private final Bitboard reserved = new Bitboard();
+    private int width = -1, height = -1;
+    
+    // Plans seen in a unit's queue, with the sweep that last saw them
+    private final ObjectIntMap<BuildPlan> queued = new ObjectIntMap<>();
+    private final Seq<BuildPlan> stale = new Seq<>();
+    // Round robin over the players, one queue per frame
+    private int sweep, cursor;
+    
+    /**
+     * Forget every team's bitmap, e.g. after a world load
+     * The player's team is built right away, so the first plan does not pay for the whole map
+     */
+    public void reset() {
+        width = world.width();
+        height = world.height();
+        for (int i = 0; i < buildable.length; i++) {
+            buildable[i] = null;
+        }
+        reserved.resize(width, height);
+        plans.reset(width, height);
+        queued.clear();
+        cursor = 0;
+        
+        if (player != null) bitsFor(player.team());
+    }
+    
+    /**
+     * True if the team could build a 1x1 block on the tile
+     * Ignores queued plans, used for ore patch discovery
+     */
+    public boolean isBuildable(Team team, int x, int y) {
+        Bitboard bits = bitsFor(team);
+        return bits.inBounds(x, y) && bits.get(x, y);
+    }
+    
+    public boolean isBuildable(int x, int y) {
+        return isBuildable(player.team(), x, y);
+    }
+    
+    /**
+     * True if the player's team could build here and no queued plan covers the tile
+     */
+    public boolean isPlaceable(int x, int y) {
+        return isBuildable(player.team(), x, y) && !reserved.get(x, y);
+    }
+    
+    public boolean isReserved(int x, int y) {
+        return reserved.inBounds(x, y) && reserved.get(x, y);
+    }
+    
+    /**
+     * Row-span version of isPlaceable, a couple of word operations per call
+     * The span must lie inside the world
+     */
+    public boolean isPlaceableSpan(int x, int y, int length) {
+        return bitsFor(player.team()).allSet(x, y, length) && !reserved.anySet(x, y, length);
+    }
+    
+    /**
+     * Pending plan covering the tile, or null
+     */
+    public BuildPlan planAt(int x, int y) {
+        return reserved.inBounds(x, y) && reserved.get(x, y) ? plans.planAt(x, y) : null;
+    }
+    
+    /**
+     * Index a pending plan and mark its footprint as taken
+     */
+    public void reserve(BuildPlan plan) {
+        ensureWorld();
+        if (plan.breaking || plan.block == null || plans.contains(plan)) return;
+        
+        plans.add(plan);
+        int offset = -(plan.block.size - 1) / 2;
+        PlanIndex.setFootprint(reserved, plan.x + offset, plan.y + offset, plan.block.size);
+    }
+    
+    /**
+     * Forget a plan that was built, cancelled or dropped
+     * Bits shared with overlapping plans are restored from the index
+     */
+    public void release(BuildPlan plan) {
+        if (!plans.contains(plan)) return;
+        plans.remove(plan);
+        queued.remove(plan, 0);
+        
+        int offset = -(plan.block.size - 1) / 2;
+        int x0 = Math.max(plan.x + offset, 0), y0 = Math.max(plan.y + offset, 0);
+        int x1 = Math.min(plan.x + offset + plan.block.size, width), y1 = Math.min(plan.y + offset + plan.block.size, height);
+        if (x0 >= x1 || y0 >= y1) return;
+        
+        reserved.clearRect(x0, y0, x1 - x0, y1 - y0);
+        plans.markNear(x0, y0, x1 - 1, y1 - 1, reserved);
+    }
+    
+    /**
+     * The feeder handed a reserved plan to the unit, from now on it lives or dies with the unit's queue
+     */
+    public void handedOff(BuildPlan plan) {
+        if (plans.contains(plan)) queued.put(plan, sweep);
+    }
+    
+    /**
+     * Pick up the plans in one teammate's queue, called every frame
+     * Players are visited round robin, so a frame only walks a single queue
+     * After a full sweep, plans no queue showed again were built, cancelled by hand or dropped, and are released
+     * Plans the feeder still holds are reserved when queued and released by the feeder or on build end
+     */
+    public void trackQueues() {
+        if (player == null || !state.isGame()) return;
+        ensureWorld();
+        
+        if (cursor >= Groups.player.size()) {
+            endSweep();
+            cursor = 0;
+            if (Groups.player.isEmpty()) return;
+        }
+        
+        Player other = Groups.player.index(cursor++);
+        if (other.team() != player.team() || other.unit() == null) return;
+        
+        Queue<BuildPlan> queue = other.unit().plans;
+        for (int i = 0; i < queue.size; i++) {
+            BuildPlan plan = queue.get(i);
+            if (plan.breaking || plan.block == null) continue;
+            
+            reserve(plan);
+            queued.put(plan, sweep);
+        }
+    }
+    
+    private void endSweep() {
+        stale.clear();
+        for (ObjectIntMap.Entry<BuildPlan> entry : queued) {
+            if (entry.value != sweep) stale.add(entry.key);
+        }
+        for (int i = 0; i < stale.size; i++) {
+            release(stale.get(i));
+        }
+        stale.clear();
+        sweep++;
+    }
+    
+    /**
+     * True if waiting can make the plan valid again: its footprint is still statically buildable
+     * and outside enemy core radius, so only a unit can be standing in the way
+     */
+    public boolean mayBecomeValid(BuildPlan plan) {
+        Team team = player.team();
+        Bitboard bits = bitsFor(team);
+        int size = plan.block.size;
+        int x0 = plan.x - (size - 1) / 2, y0 = plan.y - (size - 1) / 2;
+        if (x0 < 0 || y0 < 0 || x0 + size > width || y0 + size > height) return false;
+        
+        for (int y = y0; y < y0 + size; y++) {
+            if (!bits.allSet(x0, y, size)) return false;
+        }
+        
+        return !state.teams.anyEnemyCoresWithin(team, plan.drawx(), plan.drawy(), state.rules.enemyCoreBuildRadius + tilesize);
+    }
+    
+    /**
+     * Recompute the bits around a changed tile for every team that has a bitmap
+     */
+    public void onTileChanged(Tile tile) {
+        if (tile == null) return;
+        int radius = Math.max(REFRESH_RADIUS, tile.block().size);
+        refresh(tile.x - radius, tile.y - radius, tile.x + radius, tile.y + radius);
+    }
+    
+    /**
+     * A block finished building or breaking, its whole footprint changed
+     */
+    public void onBuildEnd(Tile tile) {
+        onTileChanged(tile);
+        
+        BuildPlan plan = planAt(tile.x, tile.y);
+        if (plan != null && plan.block == tile.block()) {
+            release(plan);
+        }
+    }
+    
+    private void refresh(int x0, int y0, int x1, int y1) {
+        if (width != world.width() || height != world.height()) return;
+        
+        for (int id = 0; id < buildable.length; id++) {
+            Bitboard bits = buildable[id];
+            if (bits == null) continue;
+            
+            Team team = Team.all[id];
+            for (int x = Math.max(x0, 0); x <= Math.min(x1, width - 1); x++) {
+                for (int y = Math.max(y0, 0); y <= Math.min(y1, height - 1); y++) {
+                    bits.set(x, y, staticBuildable(team, x, y));
+                }
+            }
+        }
+    }
+    
+    private Bitboard bitsFor(Team team) {
+        ensureWorld();
+        
+        Bitboard bits = buildable[team.id];
+        if (bits == null) {
+            bits = buildable[team.id] = new Bitboard(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (staticBuildable(team, x, y)) {
+                        bits.set(x, y);
+                    }
+                }
+            }
+        }
+        
+        return bits;
+    }
+    
+    /**
+     * The parts of Build.validPlace for a 1x1 block that only change with the tile itself
+     */
+    private static boolean staticBuildable(Team team, int x, int y) {
+        Tile tile = world.tile(x, y);
+        return tile != null
+            && world.getDarkness(x, y) < 3
+            && tile.interactable(team)
+            && tile.floor().placeableOn
+            && !tile.floor().isDeep()
+            && (tile.block() == Blocks.air || tile.block().alwaysReplace);
+    }
+    
+    private void ensureWorld() {
+        if (width != world.width() || height != world.height()) {
+            reset();
+        }
+    }
+}
\ No newline at end of file
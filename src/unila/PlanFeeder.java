@@ -0,0 +1,142 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.entities.units.BuildPlan;
+import mindustry.gen.Unit;
+import mindustry.world.Build;
+import static mindustry.Vars.*;
+
+/**
+ * Holds planned builds and hands them to the player's unit a batch at a time
+ * Keeps the unit's queue short, so the plan overlay stays cheap and builders
+ * work outwards from where they stand instead of from the far side of a scan
+ * Batches are taken in queue order, which for auto-scans is highest yield first,
+ * and only the batch itself is routed nearest-neighbour from the unit
+ */
+public class PlanFeeder {
+    /** Release more plans once the unit has fewer than this many left */
+    private static final int LOW_WATER = 16;
+    /** Plans released per refill */
+    private static final int BATCH = 32;
+    /** Plans validated per refill, bounds the frame's work while a blocked area defers everything */
+    private static final int MAX_CHECKS = BATCH * 4;
+    
+    private final Queue<BuildPlan> pending = new Queue<>(256);
+    private final Seq<BuildPlan> batch = new Seq<>(BATCH);
+    private final Seq<BuildPlan> deferred = new Seq<>();
+    private int released;
+    private int dropped;
+    
+    /**
+     * Hold a plan until the unit's queue has room for it
+     */
+    public void add(BuildPlan plan) {
+        pending.addLast(plan);
+    }
+    
+    /**
+     * Top up the unit's queue, called every frame
+     */
+    public void update() {
+        if (pending.isEmpty() || !state.isGame() || player == null) return;
+        
+        Unit unit = player.unit();
+        if (unit == null || !unit.canBuild() || unit.plans.size >= LOW_WATER) return;
+        
+        // Next batch in queue order
+        batch.clear();
+        deferred.clear();
+        for (int checked = 0; checked < MAX_CHECKS && batch.size < BATCH && !pending.isEmpty(); checked++) {
+            BuildPlan plan = pending.removeFirst();
+            
+            if (Build.validPlace(plan.block, unit.team, plan.x, plan.y, plan.rotation)) {
+                batch.add(plan);
+            } else if (DrillUtility.placeMask.mayBecomeValid(plan)) {
+                // Only a unit is in the way, e.g. the player's own mech standing on the spot
+                deferred.add(plan);
+            } else {
+                // Something was built there since the plan was made
+                DrillUtility.placeMask.release(plan);
+                dropped++;
+            }
+        }
+        
+        // Deferred plans go to the back, so a blocked spot cannot hold up the plans behind it
+        for (int i = 0; i < deferred.size; i++) {
+            pending.addLast(deferred.get(i));
+        }
+        
+        // Nearest-neighbour route through the batch, starting at the unit
+        int x = unit.tileX(), y = unit.tileY();
+        for (int i = 0; i < batch.size; i++) {
+            int nearest = nearest(i, x, y);
+            BuildPlan plan = batch.get(nearest);
+            batch.swap(i, nearest);
+            
+            unit.addBuild(plan);
+            DrillUtility.placeMask.handedOff(plan);
+            released++;
+            x = plan.x;
+            y = plan.y;
+        }
+    }
+    
+    /**
+     * Closest plan to (x, y) among batch entries from index start on
+     */
+    private int nearest(int start, int x, int y) {
+        int best = start;
+        int bestDistance = Integer.MAX_VALUE;
+        
+        for (int i = start; i < batch.size; i++) {
+            BuildPlan plan = batch.items[i];
+            int dx = plan.x - x, dy = plan.y - y;
+            int distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        
+        return best;
+    }
+    
+    /**
+     * Plans still held back, for reservations
+     */
+    public Queue<BuildPlan> pending() {
+        return pending;
+    }
+    
+    public int pendingCount() {
+        return pending.size;
+    }
+    
+    /**
+     * Plans in the unit's own queue
+     */
+    public int activeCount() {
+        return player == null || player.unit() == null ? 0 : player.unit().plans.size;
+    }
+    
+    public int releasedCount() {
+        return released;
+    }
+    
+    public int droppedCount() {
+        return dropped;
+    }
+    
+    public boolean isFeeding() {
+        return !pending.isEmpty();
+    }
+    
+    /**
+     * Forget every held plan, e.g. after a world load
+     */
+    public void clear() {
+        pending.clear();
+        released = 0;
+        dropped = 0;
+    }
+}
\ No newline at end of file
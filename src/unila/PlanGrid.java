@@ -0,0 +1,84 @@
+package unila;
+
+import mindustry.world.Block;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+
+/**
+ * The map as the planner sees it: ore, buildability and where plans go
+ * Positions are tile coordinates, cell indices are x + y * width()
+ * WorldGrid reads the live game, ArrayGrid is a plain in-memory map for the background planner and benchmarks
+ */
+public interface PlanGrid {
+    int width();
+    
+    int height();
+    
+    default boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width() && y < height();
+    }
+    
+    default int index(int x, int y) {
+        return x + y * width();
+    }
+    
+    /**
+     * Tile handle for a position, what drill placements point at, null outside the grid
+     */
+    Tile tile(int x, int y);
+    
+    default Tile tile(int index) {
+        return tile(index % width(), index / width());
+    }
+    
+    /**
+     * Item id of the ore on the tile, -1 if there is none or the position is outside
+     */
+    int drop(int x, int y);
+    
+    /**
+     * Item id the drill would mine from the tile, -1 if it mines nothing there
+     */
+    int mineable(int x, int y, Drill drill);
+    
+    /**
+     * True if the player's team could build a 1x1 block here, ignoring queued plans
+     */
+    boolean buildable(int x, int y);
+    
+    /**
+     * True if the tile is buildable and no queued plan covers it
+     */
+    boolean placeable(int x, int y);
+    
+    /**
+     * Row-span version of placeable, the span must lie inside the grid
+     */
+    default boolean placeableSpan(int x, int y, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!placeable(x + i, y)) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Queue a block, its footprint stops being placeable
+     * @param config applied when the block is built, e.g. power node links, may be null
+     */
+    void queue(int x, int y, int rotation, Block block, Object config);
+    
+    default void queue(int x, int y, int rotation, Block block) {
+        queue(x, y, rotation, block, null);
+    }
+    
+    default void queue(int x, int y, Block block) {
+        queue(x, y, 0, block, null);
+    }
+    
+    /**
+     * Offset from a block's center tile to its bottom-left footprint corner
+     */
+    static int offset(int size) {
+        return -(size - 1) / 2;
+    }
+}
@@ -0,0 +1,118 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.entities.units.BuildPlan;
+
+/**
+ * Spatial index of pending build plans
+ * Each plan is listed in every bucket its footprint touches, so finding the
+ * plan over a tile or around a footprint only looks at a handful of plans
+ */
+public class PlanIndex {
+    // Plan slots per bucket
+    private final BucketGrid buckets = new BucketGrid();
+    
+    // Slot table with reuse, so buckets hold ints instead of references
+    private final Seq<BuildPlan> slots = new Seq<>(256);
+    private final IntSeq freeSlots = new IntSeq();
+    private final ObjectIntMap<BuildPlan> slotOf = new ObjectIntMap<>();
+    
+    /**
+     * Drop every plan and cover a width x height world
+     */
+    public void reset(int width, int height) {
+        buckets.reset(width, height);
+        slots.clear();
+        freeSlots.clear();
+        slotOf.clear();
+    }
+    
+    public int size() {
+        return slotOf.size;
+    }
+    
+    public boolean contains(BuildPlan plan) {
+        return slotOf.containsKey(plan);
+    }
+    
+    public void add(BuildPlan plan) {
+        if (buckets.isEmpty() || plan.block == null || slotOf.containsKey(plan)) return;
+        
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots.size;
+            slots.add(plan);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, plan);
+        }
+        slotOf.put(plan, slot);
+        
+        int offset = -(plan.block.size - 1) / 2;
+        int x0 = plan.x + offset, y0 = plan.y + offset;
+        buckets.add(x0, y0, x0 + plan.block.size - 1, y0 + plan.block.size - 1, slot);
+    }
+    
+    public void remove(BuildPlan plan) {
+        int slot = slotOf.remove(plan, -1);
+        if (slot == -1) return;
+        
+        int offset = -(plan.block.size - 1) / 2;
+        int x0 = plan.x + offset, y0 = plan.y + offset;
+        buckets.remove(x0, y0, x0 + plan.block.size - 1, y0 + plan.block.size - 1, slot);
+        
+        slots.set(slot, null);
+        freeSlots.add(slot);
+    }
+    
+    /**
+     * Plan whose footprint covers the tile, or null
+     */
+    public BuildPlan planAt(int x, int y) {
+        IntSeq bucket = buckets.at(x, y);
+        if (bucket == null) return null;
+        
+        for (int i = 0; i < bucket.size; i++) {
+            BuildPlan plan = slots.get(bucket.get(i));
+            int offset = -(plan.block.size - 1) / 2;
+            int px = plan.x + offset, py = plan.y + offset;
+            if (x >= px && y >= py && x < px + plan.block.size && y < py + plan.block.size) {
+                return plan;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Set the footprint bits of every plan listed in the buckets touching the rectangle
+     * Used to restore bits shared with a plan that was just removed
+     */
+    public void markNear(int x0, int y0, int x1, int y1, Bitboard bits) {
+        if (buckets.isEmpty()) return;
+        
+        for (int by = buckets.bucketY(y0); by <= buckets.bucketY(y1); by++) {
+            for (int bx = buckets.bucketX(x0); bx <= buckets.bucketX(x1); bx++) {
+                IntSeq bucket = buckets.get(bx, by);
+                if (bucket == null) continue;
+                
+                for (int i = 0; i < bucket.size; i++) {
+                    BuildPlan plan = slots.get(bucket.get(i));
+                    int offset = -(plan.block.size - 1) / 2;
+                    setFootprint(bits, plan.x + offset, plan.y + offset, plan.block.size);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Set a footprint's bits, clipped to the board
+     */
+    static void setFootprint(Bitboard bits, int x, int y, int size) {
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = Math.min(x + size, bits.width()), y1 = Math.min(y + size, bits.height());
+        if (x0 < x1 && y0 < y1) {
+            bits.setRect(x0, y0, x1 - x0, y1 - y0);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package unila;
+
+import arc.util.Strings;
+import arc.util.Time;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Rolling timings and allocations for each planning phase
+ * Every phase keeps its last WINDOW samples, one per begin/end pair
+ * Only the main thread records; the background planner shares the code paths, its calls return at once
+ * Allocations come from the JVM's per-thread byte counter and read 0 where it is missing
+ */
+public class PlanMetrics {
+    private static final int WINDOW = 128;
+    
+    public enum Phase {
+        FLOOD_FILL("Flood fill"),
+        ORE_COUNT("Ore counting"),
+        SCORING("Candidate scoring"),
+        GREEDY("Greedy selection"),
+        REFINE("Refinement"),
+        EXTRACTORS("Extractors"),
+        POWER("Power nodes"),
+        PIPES("Pipes"),
+        SUBMIT("Plan submission");
+        
+        public final String label;
+        
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+    
+    private static final Phase[] phases = Phase.values();
+    
+    // Ring buffers of the last WINDOW samples per phase
+    private static final long[][] nanos = new long[phases.length][WINDOW];
+    private static final long[][] bytes = new long[phases.length][WINDOW];
+    private static final int[] samples = new int[phases.length];
+    
+    // Start marks of the phase currently being measured
+    private static final long[] startNanos = new long[phases.length];
+    private static final long[] startBytes = new long[phases.length];
+    
+    private static boolean allocations = true;
+    
+    // Report cache, rebuilt only after new samples arrive
+    private static int version, reportVersion = -1;
+    private static final long[] sorted = new long[WINDOW];
+    private static String report = "";
+    
+    public static void begin(Phase phase) {
+        if (SnapshotPlanner.onPlannerThread()) return;
+        
+        startBytes[phase.ordinal()] = allocatedBytes();
+        startNanos[phase.ordinal()] = Time.nanos();
+    }
+    
+    public static void end(Phase phase) {
+        if (SnapshotPlanner.onPlannerThread()) return;
+        
+        long elapsed = Time.timeSinceNanos(startNanos[phase.ordinal()]);
+        long allocated = allocatedBytes() - startBytes[phase.ordinal()];
+        
+        int id = phase.ordinal();
+        int slot = samples[id] % WINDOW;
+        nanos[id][slot] = elapsed;
+        bytes[id][slot] = Math.max(allocated, 0);
+        samples[id]++;
+        version++;
+    }
+    
+    /**
+     * Drop every sample, e.g. before profiling a specific map
+     */
+    public static void reset() {
+        Arrays.fill(samples, 0);
+        version++;
+    }
+    
+    /**
+     * One line per phase that has samples: min, mean, p95 and max in ms, and bytes allocated per sample
+     */
+    public static String report() {
+        if (reportVersion == version) return report;
+        
+        StringBuilder out = new StringBuilder();
+        for (Phase phase : phases) {
+            int id = phase.ordinal();
+            int count = Math.min(samples[id], WINDOW);
+            if (count == 0) continue;
+            
+            System.arraycopy(nanos[id], 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            
+            long totalNanos = 0, totalBytes = 0;
+            for (int i = 0; i < count; i++) {
+                totalNanos += sorted[i];
+                totalBytes += bytes[id][i];
+            }
+            
+            if (out.length() > 0) out.append('\n');
+            out.append("[accent]").append(phase.label).append("[] [lightgray](").append(count).append(")[] ")
+                .append(ms(sorted[0])).append(" / ")
+                .append(ms(totalNanos / count)).append(" / ")
+                .append(ms(sorted[Math.min((int)(count * 0.95f), count - 1)])).append(" / ")
+                .append(ms(sorted[count - 1])).append(" ms");
+            
+            if (allocations) {
+                out.append(", ").append(Strings.fixed(totalBytes / count / 1024f, 1)).append(" KB");
+            }
+        }
+        
+        report = out.length() == 0 ? "No plans measured yet" : "min / mean / p95 / max\n" + out;
+        reportVersion = version;
+        return report;
+    }
+    
+    private static String ms(long nanos) {
+        return Strings.fixed(nanos / 1_000_000f, 2);
+    }
+    
+    private static long allocatedBytes() {
+        if (!allocations) return 0;
+        
+        try {
+            return AllocationCounter.current();
+        } catch (Throwable e) {
+            // No com.sun.management on this platform, stop asking
+            allocations = false;
+            return 0;
+        }
+    }
+    
+    /**
+     * Kept in its own class so a missing com.sun.management only fails here
+     */
+    private static class AllocationCounter {
+        static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        
+        static long current() {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
\ No newline at end of file
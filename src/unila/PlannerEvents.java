@@ -0,0 +1,152 @@
+package unila;
+
+import jdk.jfr.*;
+import mindustry.world.Block;
+
+/**
+ * Java Flight Recorder events for the planner
+ * Every event type is disabled until a recording turns it on, e.g. with
+ * -XX:StartFlightRecording:settings=profile plus unila.*#enabled=true, or from JMC
+ * While a type is off, begin only checks a flag and returns null, nothing is timed or allocated
+ * While it is on, begin allocates the event and starts its clock, end stops it and commits
+ * if the recording's threshold wants it, so JFR sees the stage's real duration
+ * The caller holds the open event, so the main thread and the background planner record independently
+ * Platforms without jdk.jfr (Android) never load the event classes
+ */
+public class PlannerEvents {
+    public enum Stage {
+        FLOOD_FILL,
+        ORE_COUNT,
+        OPTIMIZE,
+        EXTRACTORS,
+        POWER,
+        PIPES,
+        SCAN_PATCH
+    }
+    
+    private static final boolean available = detect();
+    
+    /**
+     * Start timing a stage
+     * @return the open event, typed Object so jdk.jfr is only touched through Recorder; null while the stage is not recorded
+     */
+    public static Object begin(Stage stage) {
+        return available && Recorder.isEnabled(stage) ? Recorder.begin(stage) : null;
+    }
+    
+    /**
+     * Commit an event returned by begin
+     * @param event null when the recording was off at begin, or started midway through the stage
+     * @param drill drill being planned, null where the stage does not depend on one
+     */
+    public static void end(Object event, int patchSize, Block drill, int candidates, int placements) {
+        if (event == null) return;
+        
+        Recorder.end(event, patchSize, drill, candidates, placements);
+    }
+    
+    private static boolean detect() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Holds every jdk.jfr reference, only loaded once detect() found the module
+     */
+    private static class Recorder {
+        // Indexed by Stage ordinal
+        private static final EventType[] eventTypes = {
+            EventType.getEventType(FloodFillEvent.class),
+            EventType.getEventType(OreCountEvent.class),
+            EventType.getEventType(OptimizeEvent.class),
+            EventType.getEventType(ExtractorsEvent.class),
+            EventType.getEventType(PowerEvent.class),
+            EventType.getEventType(PipesEvent.class),
+            EventType.getEventType(ScanPatchEvent.class)
+        };
+        
+        static boolean isEnabled(Stage stage) {
+            return eventTypes[stage.ordinal()].isEnabled();
+        }
+        
+        static Object begin(Stage stage) {
+            PlannerEvent event;
+            switch (stage) {
+                case FLOOD_FILL: event = new FloodFillEvent(); break;
+                case ORE_COUNT: event = new OreCountEvent(); break;
+                case OPTIMIZE: event = new OptimizeEvent(); break;
+                case EXTRACTORS: event = new ExtractorsEvent(); break;
+                case POWER: event = new PowerEvent(); break;
+                case PIPES: event = new PipesEvent(); break;
+                default: event = new ScanPatchEvent(); break;
+            }
+            
+            event.begin();
+            return event;
+        }
+        
+        static void end(Object open, int patchSize, Block drill, int candidates, int placements) {
+            PlannerEvent event = (PlannerEvent)open;
+            event.end();
+            if (!event.shouldCommit()) return;
+            
+            event.patchSize = patchSize;
+            event.drill = drill == null ? null : drill.name;
+            event.candidates = candidates;
+            event.placements = placements;
+            event.commit();
+        }
+    }
+    
+    @Category({"Unila", "Planner"})
+    @StackTrace(false)
+    @Enabled(false)
+    abstract static class PlannerEvent extends Event {
+        @Label("Patch Size")
+        @Description("Ore tiles in the patch")
+        int patchSize;
+        
+        @Label("Drill")
+        String drill;
+        
+        @Label("Candidates")
+        @Description("Drill positions considered")
+        int candidates;
+        
+        @Label("Placements")
+        @Description("Blocks the stage planned")
+        int placements;
+    }
+    
+    @Name("unila.FloodFill")
+    @Label("Flood Fill")
+    static class FloodFillEvent extends PlannerEvent {}
+    
+    @Name("unila.OreCount")
+    @Label("Ore Count Tables")
+    static class OreCountEvent extends PlannerEvent {}
+    
+    @Name("unila.Optimize")
+    @Label("Drill Placement")
+    static class OptimizeEvent extends PlannerEvent {}
+    
+    @Name("unila.Extractors")
+    @Label("Water Extractors")
+    static class ExtractorsEvent extends PlannerEvent {}
+    
+    @Name("unila.PowerNodes")
+    @Label("Power Nodes")
+    static class PowerEvent extends PlannerEvent {}
+    
+    @Name("unila.Pipes")
+    @Label("Pipes")
+    static class PipesEvent extends PlannerEvent {}
+    
+    @Name("unila.ScanPatch")
+    @Label("Auto-Scan Patch")
+    static class ScanPatchEvent extends PlannerEvent {}
+}
\ No newline at end of file
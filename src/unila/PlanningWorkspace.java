@@ -0,0 +1,95 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.world.Tile;
+import java.util.Arrays;
+
+/**
+ * Reusable primitive buffers for a single planning pass
+ * Sized once per grid so a steady-state plan allocates nothing
+ */
+public class PlanningWorkspace {
+    /** The map this workspace plans on, the loaded world unless a benchmark or the background planner swaps it */
+    public PlanGrid grid = DrillUtility.worldGrid;
+    
+    // Per-item ore counts, indexed by Item.id, grown by countOre
+    public int[] itemCounts = new int[0];
+    
+    // Parallel per-tile arrays, indexed by grid.index(x, y) (x + y * width)
+    public int[] scores = new int[0];
+    public int[] oreIds = new int[0];
+    private final IntSeq touched = new IntSeq(512);
+    
+    // Greedy candidates as (missing ore << 32 | tile index), so one sort puts the best count first
+    public final LongSeq ranked = new LongSeq(256);
+    
+    // Scratch collections reused between calls
+    public final OreCoverage coverage = new OreCoverage();
+    public final LocalSearch search = new LocalSearch();
+    public final ExactSolver exact = new ExactSolver();
+    
+    /** Ore covered by the last plan after the greedy pass and after optimization */
+    public int coverageBefore, coverageAfter;
+    /** Drill positions the last plan queued for the greedy pass */
+    public int candidates;
+    /** Whether the exact solver proved the last plan optimal */
+    public boolean provenOptimal;
+    private final Seq<DrillPlacement> placementPool = new Seq<>(128);
+    
+    /** Item id found by the last countOre call, -1 if none */
+    public int countedOre = -1;
+    
+    /**
+     * Make sure buffers match the current grid
+     */
+    public void ensureCapacity() {
+        int area = grid.width() * grid.height();
+        if (scores.length != area) {
+            scores = new int[area];
+            oreIds = new int[area];
+            Arrays.fill(oreIds, -1);
+            touched.clear();
+        }
+    }
+    
+    /**
+     * Reset per-tile data written by the previous plan
+     */
+    public void beginPlan() {
+        ensureCapacity();
+        
+        for (int i = 0; i < touched.size; i++) {
+            int index = touched.get(i);
+            scores[index] = 0;
+            oreIds[index] = -1;
+        }
+        touched.clear();
+    }
+    
+    /**
+     * Cache the best ore and its count for a tile
+     */
+    public void setScore(int index, int oreId, int score) {
+        if (oreIds[index] == -1 && scores[index] == 0) {
+            touched.add(index);
+        }
+        oreIds[index] = oreId;
+        scores[index] = score;
+    }
+    
+    /**
+     * Take a placement from the pool
+     */
+    public DrillPlacement obtainPlacement(Tile tile, int score) {
+        DrillPlacement placement = placementPool.isEmpty() ? new DrillPlacement() : placementPool.pop();
+        return placement.set(tile, score);
+    }
+    
+    /**
+     * Return placements to the pool and clear the list
+     */
+    public void freePlacements(Seq<DrillPlacement> placements) {
+        placementPool.addAll(placements);
+        placements.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package unila;
+
+import arc.struct.*;
+import mindustry.game.Team;
+import mindustry.gen.Building;
+import mindustry.world.Tile;
+import mindustry.world.blocks.power.PowerGraph;
+import mindustry.world.blocks.power.PowerNode;
+import static mindustry.Vars.*;
+
+/**
+ * Spatial index of the player's team's buildings that take part in a power graph
+ * Filled from the team's building list on the first query after a world load or team switch,
+ * then patched around changed tiles, so finding where a new field can join never walks every building
+ * Whether a graph is powered changes every frame, so that is checked at query time
+ */
+public class PowerGridIndex {
+    // Change events may only report a multiblock's center, so recheck a margin around it
+    private static final int REFRESH_RADIUS = 3;
+    
+    // Team the index describes, null until first queried
+    private Team team;
+    private int width, height;
+    // Center tile positions (Tile.pos) of members, in the bucket of their center only
+    private final BucketGrid buckets = new BucketGrid();
+    private final IntSet members = new IntSet();
+    
+    /**
+     * Forget everything, e.g. after a world load; the next query rebuilds
+     */
+    public void reset() {
+        team = null;
+    }
+    
+    /**
+     * Recheck the buildings around a changed tile
+     * Tile changes fire for every build, deconstruction and destruction
+     */
+    public void onTileChanged(Tile tile) {
+        if (team == null || tile == null || width != world.width() || height != world.height()) return;
+        
+        int radius = Math.max(REFRESH_RADIUS, tile.block().size);
+        int bx0 = buckets.bucketX(tile.x - radius), by0 = buckets.bucketY(tile.y - radius);
+        int bx1 = buckets.bucketX(tile.x + radius), by1 = buckets.bucketY(tile.y + radius);
+        
+        // Drop members that were removed or replaced
+        for (int by = by0; by <= by1; by++) {
+            for (int bx = bx0; bx <= bx1; bx++) {
+                IntSeq bucket = buckets.get(bx, by);
+                if (bucket == null) continue;
+                
+                for (int i = bucket.size - 1; i >= 0; i--) {
+                    int pos = bucket.get(i);
+                    Building build = world.build(pos);
+                    if (build == null || build.tile.pos() != pos || !isMember(build)) {
+                        bucket.removeIndex(i);
+                        members.remove(pos);
+                    }
+                }
+            }
+        }
+        
+        Building build = tile.build;
+        if (build != null && isMember(build)) add(build);
+    }
+    
+    /**
+     * Closest building whose graph produces or stores power and that has a free link slot
+     * @param maxDistance search radius in tiles
+     * @return null if there is none in range
+     */
+    public Building nearestPowered(float x, float y, float maxDistance) {
+        ensureTeam();
+        
+        int cx = (int)x >> BucketGrid.SHIFT, cy = (int)y >> BucketGrid.SHIFT;
+        int rings = (int)Math.ceil(maxDistance / BucketGrid.SIZE) + 1;
+        Building best = null;
+        float bestDistance = maxDistance * maxDistance;
+        
+        for (int ring = 0; ring <= rings; ring++) {
+            // Every bucket further out is at least (ring - 1) buckets away
+            float bound = Math.max(ring - 1, 0) << BucketGrid.SHIFT;
+            if (best != null && bound * bound > bestDistance) break;
+            
+            for (int by = cy - ring; by <= cy + ring; by++) {
+                for (int bx = cx - ring; bx <= cx + ring; bx++) {
+                    if (Math.max(Math.abs(bx - cx), Math.abs(by - cy)) != ring) continue;
+                    
+                    IntSeq bucket = buckets.get(bx, by);
+                    if (bucket == null) continue;
+                    
+                    for (int i = 0; i < bucket.size; i++) {
+                        Building build = world.build(bucket.get(i));
+                        if (build == null || !accepts(build)) continue;
+                        
+                        float dx = build.tile.x - x, dy = build.tile.y - y;
+                        float distance = dx * dx + dy * dy;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = build;
+                        }
+                    }
+                }
+            }
+        }
+        
+        return best;
+    }
+    
+    private boolean isMember(Building build) {
+        return build.team == team && build.block.connectedPower && build.power != null;
+    }
+    
+    /**
+     * Live check: the graph has power now and a new node may link to the building
+     */
+    private boolean accepts(Building build) {
+        if (!build.isValid() || !isMember(build)) return false;
+        
+        PowerGraph graph = build.power.graph;
+        if (graph.getLastPowerProduced() <= 0f && graph.getLastPowerStored() <= 0f) return false;
+        
+        return !(build.block instanceof PowerNode) || build.power.links.size < ((PowerNode)build.block).maxNodes;
+    }
+    
+    private void add(Building build) {
+        int pos = build.tile.pos();
+        if (!members.add(pos)) return;
+        
+        buckets.add(build.tile.x, build.tile.y, build.tile.x, build.tile.y, pos);
+    }
+    
+    private void ensureTeam() {
+        if (team == player.team() && width == world.width() && height == world.height()) return;
+        
+        team = player.team();
+        width = world.width();
+        height = world.height();
+        buckets.reset(width, height);
+        members.clear();
+        
+        Seq<Building> buildings = team.data().buildings;
+        for (int i = 0; i < buildings.size; i++) {
+            if (isMember(buildings.get(i))) add(buildings.get(i));
+        }
+    }
+}
\ No newline at end of file
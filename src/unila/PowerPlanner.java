@@ -0,0 +1,504 @@
+package unila;
+
+import arc.math.geom.Point2;
+import arc.struct.*;
+import mindustry.gen.Building;
+import mindustry.world.Tile;
+import mindustry.world.blocks.power.PowerNode;
+import static mindustry.Vars.*;
+
+/**
+ * Chooses power node positions for a field of drills
+ * Lazy greedy set cover takes the free tile whose laser reaches the most unpowered drills, then a drop
+ * pass removes nodes whose drills all fit on other nodes in range
+ * A spanning tree, shortest links first, joins the nodes into one graph, with relay nodes where
+ * the closest pair is out of laser range, and the same kind of chain links it to the team's grid
+ * Drill links and node links together stay within maxNodes and go out as each node's plan config
+ */
+public class PowerPlanner {
+    // Links every node keeps free for the spanning tree
+    private static final int TREE_LINKS = 2;
+    // Relays tried between two nodes before giving up on the pair
+    private static final int MAX_RELAYS = 16;
+    
+    // Candidate positions (Point2.pack) and the drills each one reaches
+    private final IntSeq candidates = new IntSeq();
+    private final IntIntMap candidateIds = new IntIntMap();
+    private final Seq<IntSeq> reach = new Seq<>();
+    private final GainQueue gains = new GainQueue();
+    private int[] owners = new int[0];
+    
+    // Planned nodes: position, drills linked and other nodes linked
+    private final IntSeq nodes = new IntSeq();
+    private final Seq<IntSeq> nodeDrills = new Seq<>();
+    private final Seq<IntSeq> nodeLinks = new Seq<>();
+    private final Bits joined = new Bits();
+    private final Bits stranded = new Bits();
+    
+    // Links from planned nodes to existing buildings, the building as Tile.pos
+    private final IntSeq externalFrom = new IntSeq();
+    private final IntSeq externalTo = new IntSeq();
+    private final Bits powered = new Bits();
+    private final Bits unreachable = new Bits();
+    private int islands;
+    
+    private final IntSeq relayPath = new IntSeq();
+    private final IntSeq moves = new IntSeq();
+    private final Seq<IntSeq> pool = new Seq<>();
+    
+    // Settings of the current plan
+    private Seq<DrillPlacement> drills;
+    private float range, half, centerOffset;
+    private int maxLinks, capacity;
+    
+    /**
+     * Queue power nodes covering every drill that has a free tile within laser range
+     * @param occupied tiles other blocks of this stage took, receives the nodes
+     * @param existing the team's power buildings to link into, null to plan the field on its own
+     * @return number of power nodes queued, relays included
+     */
+    public int plan(PlanGrid grid, Seq<DrillPlacement> drills, int drillSize, PowerNode node, Bitboard occupied, PowerGridIndex existing) {
+        clear();
+        this.drills = drills;
+        range = node.laserRange;
+        maxLinks = node.maxNodes;
+        capacity = Math.max(maxLinks - TREE_LINKS, 1);
+        half = drillSize / 2f;
+        centerOffset = drillSize % 2 == 0 ? 0.5f : 0f;
+        
+        collectCandidates(grid, occupied);
+        cover();
+        dropRedundant();
+        if (nodes.isEmpty()) return 0;
+        
+        for (int i = 0; i < nodes.size; i++) {
+            occupied.set(Point2.x(nodes.get(i)), Point2.y(nodes.get(i)));
+        }
+        connect(grid, occupied);
+        if (existing != null) attach(grid, occupied, existing);
+        countIslands();
+        
+        for (int i = 0; i < nodes.size; i++) {
+            int x = Point2.x(nodes.get(i)), y = Point2.y(nodes.get(i));
+            IntSeq linkedDrills = nodeDrills.get(i), linkedNodes = nodeLinks.get(i);
+            
+            // Offsets from the node, what PowerNode reads from a Point2[] config
+            Point2[] config = new Point2[linkedDrills.size + linkedNodes.size + externalLinks(i)];
+            for (int j = 0; j < linkedDrills.size; j++) {
+                Tile tile = drills.get(linkedDrills.get(j)).tile;
+                config[j] = new Point2(tile.x - x, tile.y - y);
+            }
+            for (int j = 0; j < linkedNodes.size; j++) {
+                int other = nodes.get(linkedNodes.get(j));
+                config[linkedDrills.size + j] = new Point2(Point2.x(other) - x, Point2.y(other) - y);
+            }
+            for (int j = 0, k = linkedDrills.size + linkedNodes.size; j < externalFrom.size; j++) {
+                if (externalFrom.get(j) != i) continue;
+                
+                int other = externalTo.get(j);
+                config[k++] = new Point2(Point2.x(other) - x, Point2.y(other) - y);
+            }
+            
+            grid.queue(x, y, 0, node, config);
+        }
+        
+        return nodes.size;
+    }
+    
+    /**
+     * Node graphs the last plan left without power: the spanning tree and each node no relay chain could join
+     * Without a grid to attach to, every graph counts, so a field that is one linked tree reports 1
+     */
+    public int unpoweredIslands() {
+        return islands;
+    }
+    
+    /**
+     * Every free tile whose laser reaches a drill, with the drills it reaches
+     */
+    private void collectCandidates(PlanGrid grid, Bitboard occupied) {
+        int radius = (int)Math.ceil(range + half);
+        
+        for (int d = 0; d < drills.size; d++) {
+            Tile tile = drills.get(d).tile;
+            float cx = tile.x + centerOffset, cy = tile.y + centerOffset;
+            
+            for (int y = tile.y - radius; y <= tile.y + radius + 1; y++) {
+                for (int x = tile.x - radius; x <= tile.x + radius + 1; x++) {
+                    if (!occupied.inBounds(x, y) || occupied.get(x, y) || !grid.placeable(x, y) || !overlaps(x, y, cx, cy, half)) continue;
+                    
+                    int pos = Point2.pack(x, y);
+                    int id = candidateIds.get(pos, -1);
+                    if (id == -1) {
+                        id = candidates.size;
+                        candidates.add(pos);
+                        candidateIds.put(pos, id);
+                        reach.add(obtain());
+                    }
+                    reach.get(id).add(d);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Greedy set cover, each node takes at most capacity drills
+     * Queued gains only ever shrink, so the top entry is rechecked and requeued with its real gain until one holds
+     */
+    private void cover() {
+        if (owners.length < drills.size) owners = new int[drills.size];
+        for (int d = 0; d < drills.size; d++) owners[d] = -1;
+        
+        gains.reset(capacity);
+        for (int c = 0; c < candidates.size; c++) gains.push(c, Math.min(reach.get(c).size, capacity));
+        
+        while (!gains.isEmpty()) {
+            int queued = gains.topGain();
+            int best = gains.poll();
+            
+            IntSeq covered = reach.get(best);
+            int gain = 0;
+            for (int i = 0; i < covered.size; i++) {
+                if (owners[covered.get(i)] == -1) gain++;
+            }
+            gain = Math.min(gain, capacity);
+            if (gain == 0) continue;
+            if (gain < queued) {
+                gains.push(best, gain);
+                continue;
+            }
+            
+            int id = addNode(candidates.get(best));
+            IntSeq linked = nodeDrills.get(id);
+            for (int i = 0; i < covered.size && linked.size < capacity; i++) {
+                int drill = covered.get(i);
+                if (owners[drill] == -1) {
+                    owners[drill] = id;
+                    linked.add(drill);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Remove nodes whose drills can all move to other nodes in range with room left
+     * Later picks cover the fewest drills, so they are tried first
+     */
+    private void dropRedundant() {
+        for (int n = nodes.size - 1; n >= 0; n--) {
+            IntSeq linked = nodeDrills.get(n);
+            moves.clear();
+            
+            for (int i = 0; i < linked.size; i++) {
+                int target = rehome(linked.get(i), n);
+                if (target == -1) break;
+                
+                nodeDrills.get(target).add(linked.get(i));
+                moves.add(target);
+            }
+            
+            if (moves.size < linked.size) {
+                // Undo the partial move, the node stays
+                for (int i = 0; i < moves.size; i++) nodeDrills.get(moves.get(i)).pop();
+                continue;
+            }
+            linked.clear();
+        }
+        
+        // Compact away the emptied nodes
+        int kept = 0;
+        for (int n = 0; n < nodes.size; n++) {
+            IntSeq linked = nodeDrills.get(n);
+            if (linked.isEmpty()) {
+                pool.add(linked);
+                pool.add(nodeLinks.get(n));
+                continue;
+            }
+            nodes.set(kept, nodes.get(n));
+            nodeDrills.set(kept, linked);
+            nodeLinks.set(kept, nodeLinks.get(n));
+            kept++;
+        }
+        nodes.size = kept;
+        nodeDrills.truncate(kept);
+        nodeLinks.truncate(kept);
+    }
+    
+    private int rehome(int drill, int except) {
+        Tile tile = drills.get(drill).tile;
+        float cx = tile.x + centerOffset, cy = tile.y + centerOffset;
+        
+        for (int n = 0; n < nodes.size; n++) {
+            if (n == except || nodeDrills.get(n).isEmpty() || nodeDrills.get(n).size >= capacity) continue;
+            if (overlaps(Point2.x(nodes.get(n)), Point2.y(nodes.get(n)), cx, cy, half)) return n;
+        }
+        return -1;
+    }
+    
+    /**
+     * Spanning tree over the nodes, always adding the shortest link from a joined node with a free slot
+     * Nodes no chain of relays can reach are left out of the tree
+     */
+    private void connect(PlanGrid grid, Bitboard occupied) {
+        int covering = nodes.size;
+        joined.set(0);
+        
+        while (true) {
+            int bestFrom = -1, bestTo = -1;
+            long bestDistance = Long.MAX_VALUE;
+            
+            for (int to = 0; to < covering; to++) {
+                if (joined.get(to) || stranded.get(to)) continue;
+                
+                for (int from = 0; from < nodes.size; from++) {
+                    if (!joined.get(from) || spare(from) == 0) continue;
+                    
+                    long distance = distance2(nodes.get(from), nodes.get(to));
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestFrom = from;
+                        bestTo = to;
+                    }
+                }
+            }
+            if (bestTo == -1) return;
+            
+            int relays = nodes.size;
+            int target = nodes.get(bestTo);
+            int last = bridge(grid, bestFrom, Point2.x(target), Point2.y(target), 0.5f, occupied);
+            if (last == -1) {
+                stranded.set(bestTo);
+                continue;
+            }
+            
+            link(last, bestTo);
+            joined.set(bestTo);
+            for (int i = relays; i < nodes.size; i++) joined.set(i);
+        }
+    }
+    
+    /**
+     * Link the planned nodes to the team's powered buildings
+     * The spanning tree and every stranded node are clusters; the closest one joins first, either to
+     * the existing grid or to a cluster that already has power, which is Prim's algorithm rooted at the grid
+     */
+    private void attach(PlanGrid grid, Bitboard occupied, PowerGridIndex existing) {
+        float searchRadius = range * MAX_RELAYS;
+        
+        while (true) {
+            int bestNode = -1, bestTarget = -1;
+            Building bestBuilding = null;
+            float bestDistance = searchRadius * searchRadius;
+            
+            for (int n = 0; n < nodes.size; n++) {
+                if (powered.get(n) || unreachable.get(cluster(n)) || spare(n) == 0) continue;
+                
+                float nx = Point2.x(nodes.get(n)), ny = Point2.y(nodes.get(n));
+                Building build = existing.nearestPowered(nx, ny, (float)Math.sqrt(bestDistance));
+                if (build != null) {
+                    float dx = build.x / tilesize - nx, dy = build.y / tilesize - ny;
+                    if (dx * dx + dy * dy < bestDistance) {
+                        bestDistance = dx * dx + dy * dy;
+                        bestNode = n;
+                        bestBuilding = build;
+                        bestTarget = -1;
+                    }
+                }
+                
+                for (int m = 0; m < nodes.size; m++) {
+                    if (!powered.get(m) || spare(m) == 0) continue;
+                    
+                    float distance = distance2(nodes.get(n), nodes.get(m));
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestNode = n;
+                        bestBuilding = null;
+                        bestTarget = m;
+                    }
+                }
+            }
+            if (bestNode == -1) break;
+            
+            int relays = nodes.size;
+            int last;
+            if (bestBuilding != null) {
+                last = bridge(grid, bestNode, bestBuilding.x / tilesize, bestBuilding.y / tilesize, bestBuilding.block.size / 2f, occupied);
+            } else {
+                int target = nodes.get(bestTarget);
+                last = bridge(grid, bestNode, Point2.x(target), Point2.y(target), 0.5f, occupied);
+            }
+            if (last == -1) {
+                unreachable.set(cluster(bestNode));
+                continue;
+            }
+            
+            if (bestBuilding != null) {
+                externalFrom.add(last);
+                externalTo.add(bestBuilding.tile.pos());
+            } else {
+                link(last, bestTarget);
+            }
+            
+            // The whole cluster has power now, and so do the relays that carried it
+            int cluster = cluster(bestNode);
+            for (int n = 0; n < relays; n++) {
+                if (cluster(n) == cluster) powered.set(n);
+            }
+            for (int n = relays; n < nodes.size; n++) powered.set(n);
+        }
+    }
+    
+    /**
+     * Count the clusters with a node that has no power, the spanning tree once and every node outside it alone
+     */
+    private void countIslands() {
+        boolean treeUnpowered = false;
+        for (int n = 0; n < nodes.size; n++) {
+            if (powered.get(n)) continue;
+            
+            if (joined.get(n)) {
+                treeUnpowered = true;
+            } else {
+                islands++;
+            }
+        }
+        if (treeUnpowered) islands++;
+    }
+    
+    /**
+     * Cluster key of a node: 0 for the spanning tree, a key of its own for a stranded node
+     */
+    private int cluster(int node) {
+        return joined.get(node) ? 0 : node + 1;
+    }
+    
+    /**
+     * Chain relays from a node until one reaches the target, each relay stepping closer to it
+     * The relays are linked in a line but not to the target
+     * @param targetHalf half the target block's size, in tiles
+     * @return the node that reaches the target, -1 if no chain was found and nothing was added
+     */
+    private int bridge(PlanGrid grid, int from, float targetX, float targetY, float targetHalf, Bitboard occupied) {
+        relayPath.clear();
+        int position = nodes.get(from);
+        
+        while (!overlaps(Point2.x(position), Point2.y(position), targetX, targetY, targetHalf)) {
+            if (relayPath.size == MAX_RELAYS) return -1;
+            
+            int relay = findRelay(grid, position, targetX, targetY, occupied);
+            if (relay == -1) return -1;
+            
+            relayPath.add(relay);
+            position = relay;
+        }
+        
+        int previous = from;
+        for (int i = 0; i < relayPath.size; i++) {
+            int relay = addNode(relayPath.get(i));
+            occupied.set(Point2.x(relayPath.get(i)), Point2.y(relayPath.get(i)));
+            link(previous, relay);
+            previous = relay;
+        }
+        return previous;
+    }
+    
+    /**
+     * Free tile in laser range of the position that gets closest to the target, -1 if none gets closer
+     */
+    private int findRelay(PlanGrid grid, int position, float targetX, float targetY, Bitboard occupied) {
+        int px = Point2.x(position), py = Point2.y(position);
+        int radius = (int)Math.ceil(range);
+        int best = -1;
+        float bestDistance = distance2(px, py, targetX, targetY);
+        
+        for (int y = py - radius; y <= py + radius; y++) {
+            for (int x = px - radius; x <= px + radius; x++) {
+                if (!occupied.inBounds(x, y) || occupied.get(x, y) || !grid.placeable(x, y)) continue;
+                
+                int candidate = Point2.pack(x, y);
+                float distance = distance2(x, y, targetX, targetY);
+                if (distance < bestDistance && reaches(position, candidate)) {
+                    bestDistance = distance;
+                    best = candidate;
+                }
+            }
+        }
+        
+        return best;
+    }
+    
+    private int spare(int node) {
+        return maxLinks - nodeDrills.get(node).size - nodeLinks.get(node).size - externalLinks(node);
+    }
+    
+    private int externalLinks(int node) {
+        int count = 0;
+        for (int i = 0; i < externalFrom.size; i++) {
+            if (externalFrom.get(i) == node) count++;
+        }
+        return count;
+    }
+    
+    private void link(int a, int b) {
+        nodeLinks.get(a).add(b);
+        nodeLinks.get(b).add(a);
+    }
+    
+    private int addNode(int position) {
+        nodes.add(position);
+        nodeDrills.add(obtain());
+        nodeLinks.add(obtain());
+        return nodes.size - 1;
+    }
+    
+    /**
+     * Laser from one node reaches another, both 1x1
+     */
+    private boolean reaches(int from, int to) {
+        return overlaps(Point2.x(from), Point2.y(from), Point2.x(to), Point2.y(to), 0.5f);
+    }
+    
+    /**
+     * Same test as PowerNode.overlaps: the laser circle around the node touches the block's square, in tiles
+     */
+    private boolean overlaps(float nodeX, float nodeY, float cx, float cy, float halfSize) {
+        float dx = Math.max(Math.abs(nodeX - cx) - halfSize, 0f);
+        float dy = Math.max(Math.abs(nodeY - cy) - halfSize, 0f);
+        return dx * dx + dy * dy < range * range;
+    }
+    
+    private static long distance2(int a, int b) {
+        long dx = Point2.x(a) - Point2.x(b), dy = Point2.y(a) - Point2.y(b);
+        return dx * dx + dy * dy;
+    }
+    
+    private static float distance2(float x, float y, float targetX, float targetY) {
+        float dx = x - targetX, dy = y - targetY;
+        return dx * dx + dy * dy;
+    }
+    
+    private IntSeq obtain() {
+        IntSeq seq = pool.isEmpty() ? new IntSeq(8) : pool.pop();
+        seq.clear();
+        return seq;
+    }
+    
+    private void clear() {
+        pool.addAll(reach);
+        pool.addAll(nodeDrills);
+        pool.addAll(nodeLinks);
+        reach.clear();
+        nodeDrills.clear();
+        nodeLinks.clear();
+        candidates.clear();
+        candidateIds.clear();
+        nodes.clear();
+        joined.clear();
+        stranded.clear();
+        externalFrom.clear();
+        externalTo.clear();
+        powered.clear();
+        unreachable.clear();
+        islands = 0;
+    }
+}
\ No newline at end of file
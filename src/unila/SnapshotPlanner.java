@@ -0,0 +1,222 @@
+package unila;
+
+import arc.Core;
+import arc.func.Cons;
+import arc.struct.*;
+import arc.util.Log;
+import arc.util.Structs;
+import mindustry.entities.units.BuildPlan;
+import mindustry.type.Item;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static mindustry.Vars.*;
+
+/**
+ * Plans drill fields on a background thread against a WorldSnapshot
+ * The snapshot is copied into an ArrayGrid and planned by the same PatchPlanner the main thread uses:
+ * lattice, exact solver, local search, mixed tiers, extractors and pipes
+ * Power nodes need the team's live grid, the main thread adds them when it commits a batch
+ * Finished batches are posted back to the main thread for validation and queueing
+ * The worker reads Config like the main thread does; only the settings dialog writes it
+ */
+public class SnapshotPlanner {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(PlannerThread::new);
+    
+    // Bumped on cancel, stale tasks and batches compare against it
+    private volatile int generation;
+    private volatile float progress;
+    private volatile boolean running;
+    
+    // Worker-thread state, only touched by the executor thread
+    private final PatchPlanner planner = new PatchPlanner();
+    private final Bitboard scanned = new Bitboard();
+    
+    /**
+     * Plans for one patch, in world coordinates
+     */
+    public static class PlanBatch {
+        public final int generation;
+        // Drills, extractors and pipes in the order they were planned
+        public final Seq<BuildPlan> plans = new Seq<>();
+        // Drill types used, largest first, for the power nodes added on commit
+        public final Seq<Drill> tiers = new Seq<>(4);
+        public final PatchPlanner.Report report = new PatchPlanner.Report();
+        
+        PlanBatch(int generation) {
+            this.generation = generation;
+        }
+    }
+    
+    /**
+     * Planner tasks run on this thread, main-thread-only instrumentation skips it
+     */
+    static class PlannerThread extends Thread {
+        PlannerThread(Runnable runnable) {
+            super(runnable, "unila-planner");
+            setDaemon(true);
+        }
+    }
+    
+    public static boolean onPlannerThread() {
+        return Thread.currentThread() instanceof PlannerThread;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public float progress() {
+        return progress;
+    }
+    
+    public boolean isCurrent(PlanBatch batch) {
+        return batch.generation == generation;
+    }
+    
+    /**
+     * Drop all queued and running work, batches already in flight are ignored
+     */
+    public void cancel() {
+        generation++;
+        running = false;
+    }
+    
+    /**
+     * Scan a circular area of the snapshot and plan every reachable patch
+     * Patches are planned in scan order on one grid, so each plans around the ones before it
+     * @param onFailed run on the main thread instead of onDone if the scan threw
+     */
+    public void submitScan(WorldSnapshot snapshot, Drill drill, int centerX, int centerY, int radius,
+                           Cons<PlanBatch> onBatch, Runnable onDone, Runnable onFailed) {
+        int task = ++generation;
+        running = true;
+        progress = 0f;
+        
+        executor.execute(() -> {
+            try {
+                ArrayGrid grid = snapshot.toGrid();
+                planner.workspace.grid = grid;
+                scanned.resize(grid.width(), grid.height());
+                
+                int radiusSquared = radius * radius;
+                int total = (2 * radius + 1) * (2 * radius + 1);
+                int visitedCells = 0;
+                Seq<PlanBatch> batches = new Seq<>();
+                
+                for (int dx = -radius; dx <= radius; dx++) {
+                    for (int dy = -radius; dy <= radius; dy++, visitedCells++) {
+                        if (task != generation) return;
+                        if (dx * dx + dy * dy > radiusSquared) continue;
+                        
+                        int x = centerX + dx - snapshot.originX, y = centerY + dy - snapshot.originY;
+                        if (!grid.inBounds(x, y) || scanned.get(x, y)) continue;
+                        
+                        int ore = grid.drop(x, y);
+                        if (ore == -1 || !grid.buildable(x, y)) continue;
+                        if (drill.tier < content.item(ore).hardness) continue;
+                        
+                        planner.floodFill(grid.tile(x, y), content.item(ore));
+                        for (int i = 0; i < planner.floodTiles.size; i++) {
+                            Tile tile = planner.floodTiles.get(i);
+                            scanned.set(tile.x, tile.y);
+                        }
+                        if (planner.floodTiles.size < Config.minOres) continue;
+                        
+                        PlanBatch batch = planPatch(snapshot, grid, drill, content.item(ore), task);
+                        if (!batch.plans.isEmpty()) {
+                            batches.add(batch);
+                        }
+                    }
+                    
+                    progress = (float)visitedCells / total;
+                }
+                
+                // Highest yield first, so the best patches lead the build queue
+                batches.sort(Structs.comparingFloat(batch -> -batch.report.yield));
+                for (PlanBatch batch : batches) {
+                    Core.app.post(() -> onBatch.get(batch));
+                }
+                
+                Core.app.post(() -> {
+                    if (task == generation) {
+                        running = false;
+                        onDone.run();
+                    }
+                });
+            } catch (Throwable error) {
+                Log.err("AutoDrill background scan failed", error);
+                fail(task, onFailed);
+            } finally {
+                planner.clear();
+            }
+        });
+    }
+    
+    /**
+     * Plan a single, already flood-filled patch
+     * @param cells local snapshot indices of the patch tiles
+     * @param onFailed run on the main thread if planning threw
+     */
+    public void submitPatch(WorldSnapshot snapshot, IntSeq cells, Drill drill, Item ore, Cons<PlanBatch> onBatch, Runnable onFailed) {
+        int task = ++generation;
+        running = true;
+        
+        executor.execute(() -> {
+            try {
+                ArrayGrid grid = snapshot.toGrid();
+                planner.workspace.grid = grid;
+                planner.floodTiles.clear();
+                for (int i = 0; i < cells.size; i++) {
+                    planner.floodTiles.add(grid.tile(cells.get(i)));
+                }
+                
+                PlanBatch batch = planPatch(snapshot, grid, drill, ore, task);
+                Core.app.post(() -> {
+                    if (task == generation) {
+                        running = false;
+                        onBatch.get(batch);
+                    }
+                });
+            } catch (Throwable error) {
+                Log.err("AutoDrill background plan failed", error);
+                fail(task, onFailed);
+            } finally {
+                planner.clear();
+            }
+        });
+    }
+    
+    /**
+     * Report a task that threw, unless it was cancelled or replaced meanwhile
+     */
+    private void fail(int task, Runnable onFailed) {
+        Core.app.post(() -> {
+            if (task == generation) {
+                running = false;
+                onFailed.run();
+            }
+        });
+    }
+    
+    /**
+     * Run the shared pipeline over the planner's flood tiles, without power nodes
+     * Plans land on the grid, the ones this patch added are moved to world coordinates
+     */
+    private PlanBatch planPatch(WorldSnapshot snapshot, ArrayGrid grid, Drill drill, Item ore, int task) {
+        PlanBatch batch = new PlanBatch(task);
+        int first = grid.plans.size;
+        
+        planner.plan(drill, ore, Config.optimizerBudgetMs * 1_000_000L, false);
+        batch.tiers.addAll(planner.drillsFor(drill, ore));
+        batch.report.set(planner.report);
+        
+        for (int i = first; i < grid.plans.size; i++) {
+            BuildPlan plan = grid.plans.get(i);
+            batch.plans.add(new BuildPlan(snapshot.originX + plan.x, snapshot.originY + plan.y, plan.rotation, plan.block, plan.config));
+        }
+        
+        return batch;
+    }
+}
\ No newline at end of file
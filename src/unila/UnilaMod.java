@@ -24,8 +24,22 @@ public class UnilaMod extends Mod {
         
         Events.on(WorldLoadEvent.class, e -> {
             if (manager != null) {
+                manager.cancelAutoScan();
                 manager.disable();
                 manager.clearCaches();
+                manager.onWorldLoad();
+            }
+        });
+        
+        Events.on(TileChangeEvent.class, e -> {
+            if (manager != null) {
+                manager.onTileChanged(e.tile);
+            }
+        });
+        
+        Events.on(BlockBuildEndEvent.class, e -> {
+            if (manager != null) {
+                manager.onBuildEnd(e.tile);
             }
         });
     }
@@ -42,6 +56,9 @@ public class UnilaMod extends Mod {
         Events.run(Trigger.update, () -> {
             if (manager != null) {
                 manager.update();
+                manager.updateAutoScan();
+                DrillUtility.placeMask.trackQueues();
+                DrillUtility.feeder.update();
             }
         });
     }
@@ -68,5 +85,14 @@ public class UnilaMod extends Mod {
         handler.<Player>register("autodrill-scan", "Perform auto-scan around player", (args, player) -> {
             if (manager != null) manager.performAutoScan();
         });
+        
+        handler.<Player>register("autodrill-stats", "[reset]", "Show planner phase timings", (args, player) -> {
+            if (args.length > 0 && args[0].equalsIgnoreCase("reset")) {
+                PlanMetrics.reset();
+                player.sendMessage("[accent]AutoDrill stats cleared");
+            } else {
+                player.sendMessage(PlanMetrics.report());
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+package unila;
+
+import arc.math.geom.Point2;
+import arc.struct.*;
+import mindustry.world.Block;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import mindustry.world.blocks.production.SolidPump;
+import mindustry.world.consumers.ConsumeLiquid;
+import java.util.Arrays;
+
+/**
+ * Chooses water extractor positions shared between neighbouring drills
+ * An extractor hands its output to every block beside it, so one next to two drills can feed both
+ * while its output covers their boost consumption
+ * Greedy cover picks the free spot whose output reaches the most unfed demand, splitting it across
+ * the adjacent drills smallest need first, then a drop pass removes extractors whose share the
+ * others' spare output can carry
+ * Output is the nominal pumpAmount, floor bonuses to the extractor are not counted
+ */
+public class WaterPlanner {
+    // Demand below this, in liquid units per tick, counts as fed
+    private static final float EPSILON = 0.0001f;
+    
+    // Candidate center tiles (Point2.pack) and the drills adjacent to each
+    private final IntSeq candidates = new IntSeq();
+    private final IntIntMap candidateIds = new IntIntMap();
+    private final Seq<IntSeq> reach = new Seq<>();
+    private final Seq<IntSeq> pool = new Seq<>();
+    private float[] gains = new float[0];
+    
+    // Water each drill still lacks, per tick
+    private float[] needs = new float[0];
+    
+    // Chosen extractors as candidate ids, and every share they hand out
+    private final IntSeq chosen = new IntSeq();
+    private final IntSeq shareFrom = new IntSeq();
+    private final IntSeq shareTo = new IntSeq();
+    private final FloatSeq shareAmount = new FloatSeq();
+    private final IntSeq order = new IntSeq();
+    // Output each candidate has handed out so far, kept in step with the share lists
+    private float[] used = new float[0];
+    
+    private Seq<DrillPlacement> drills;
+    private float output;
+    private int underfed;
+    private float balance;
+    
+    /**
+     * Queue extractors until every drill's boost is covered, or no free spot beside an unfed drill is left
+     * @param occupied tiles other blocks of this stage took, receives the extractors
+     * @return number of extractors queued
+     */
+    public int plan(PlanGrid grid, Seq<DrillPlacement> drills, Drill drill, SolidPump extractor, Bitboard occupied) {
+        clear();
+        this.drills = drills;
+        output = extractor.pumpAmount;
+        float demand = boostDemand(drill);
+        if (demand <= 0f || output <= 0f) return 0;
+        
+        if (needs.length < drills.size) needs = new float[drills.size];
+        for (int d = 0; d < drills.size; d++) needs[d] = demand;
+        
+        collectCandidates(grid, drill.size, extractor, occupied);
+        cover(grid, extractor, occupied);
+        dropRedundant(grid, extractor, occupied);
+        
+        underfed = 0;
+        for (int d = 0; d < drills.size; d++) {
+            if (needs[d] > EPSILON) underfed++;
+        }
+        
+        for (int i = 0; i < chosen.size; i++) {
+            int pos = candidates.get(chosen.get(i));
+            grid.queue(Point2.x(pos), Point2.y(pos), extractor);
+        }
+        
+        // Per second, the extractors run whether or not a drill takes the water
+        balance = (chosen.size * output - drills.size * demand) * 60f;
+        return chosen.size;
+    }
+    
+    /**
+     * Water produced minus water the drills' boost takes, per second, for the last plan
+     */
+    public float balance() {
+        return balance;
+    }
+    
+    /**
+     * Drills the last plan could not fully feed
+     */
+    public int underfed() {
+        return underfed;
+    }
+    
+    /**
+     * Water per tick the drill's boost consumes, 0 if it has no liquid boost
+     */
+    private static float boostDemand(Drill drill) {
+        ConsumeLiquid consume = drill.findConsumer(c -> c instanceof ConsumeLiquid && c.booster);
+        return consume == null ? 0f : consume.amount;
+    }
+    
+    /**
+     * Every free extractor position sharing an edge with a drill, with the drills it touches
+     */
+    private void collectCandidates(PlanGrid grid, int drillSize, Block extractor, Bitboard occupied) {
+        int size = extractor.size;
+        int drillOffset = PlanGrid.offset(drillSize), offset = PlanGrid.offset(size);
+        
+        for (int d = 0; d < drills.size; d++) {
+            Tile tile = drills.get(d).tile;
+            int dx0 = tile.x + drillOffset, dy0 = tile.y + drillOffset;
+            
+            // Bottom-left corners of footprints beside the drill, corners excluded
+            for (int y = dy0 - size; y <= dy0 + drillSize; y++) {
+                for (int x = dx0 - size; x <= dx0 + drillSize; x++) {
+                    boolean besideX = x == dx0 - size || x == dx0 + drillSize;
+                    boolean besideY = y == dy0 - size || y == dy0 + drillSize;
+                    if (besideX == besideY) continue;
+                    
+                    int cx = x - offset, cy = y - offset;
+                    Tile center = grid.tile(cx, cy);
+                    if (center == null || !DrillUtility.canPlaceBlock(grid, center, extractor, occupied)) continue;
+                    
+                    int pos = Point2.pack(cx, cy);
+                    int id = candidateIds.get(pos, -1);
+                    if (id == -1) {
+                        id = candidates.size;
+                        candidates.add(pos);
+                        candidateIds.put(pos, id);
+                        reach.add(obtain());
+                    }
+                    reach.get(id).add(d);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Greedy cover of the drills' demand
+     * Gains only shrink as drills fill and spots get taken, so the largest stored one is rechecked before it is trusted
+     */
+    private void cover(PlanGrid grid, Block extractor, Bitboard occupied) {
+        if (gains.length < candidates.size) {
+            gains = new float[candidates.size];
+            used = new float[candidates.size];
+        }
+        Arrays.fill(used, 0, candidates.size, 0f);
+        for (int c = 0; c < candidates.size; c++) {
+            IntSeq touched = reach.get(c);
+            float gain = 0f;
+            for (int i = 0; i < touched.size; i++) gain += needs[touched.get(i)];
+            gains[c] = Math.min(gain, output);
+        }
+        
+        while (true) {
+            int best = -1;
+            for (int c = 0; c < candidates.size; c++) {
+                if (gains[c] > EPSILON && (best == -1 || gains[c] > gains[best])) best = c;
+            }
+            if (best == -1) return;
+            
+            float gain = 0f;
+            int pos = candidates.get(best);
+            Tile center = grid.tile(Point2.x(pos), Point2.y(pos));
+            if (DrillUtility.canPlaceBlock(grid, center, extractor, occupied)) {
+                IntSeq touched = reach.get(best);
+                for (int i = 0; i < touched.size; i++) gain += needs[touched.get(i)];
+                gain = Math.min(gain, output);
+            }
+            if (gain < gains[best]) {
+                gains[best] = gain;
+                continue;
+            }
+            
+            gains[best] = 0f;
+            chosen.add(best);
+            DrillUtility.markBlockArea(center, extractor.size, occupied);
+            share(best);
+        }
+    }
+    
+    /**
+     * Split one extractor's output over its unfed drills, smallest need first so drills fill completely
+     */
+    private void share(int candidate) {
+        IntSeq touched = reach.get(candidate);
+        order.clear();
+        for (int i = 0; i < touched.size; i++) {
+            if (needs[touched.get(i)] > EPSILON) order.add(touched.get(i));
+        }
+        
+        float left = output;
+        while (left > EPSILON && !order.isEmpty()) {
+            int next = 0;
+            for (int i = 1; i < order.size; i++) {
+                if (needs[order.get(i)] < needs[order.get(next)]) next = i;
+            }
+            
+            int drill = order.removeIndex(next);
+            float amount = Math.min(needs[drill], left);
+            needs[drill] -= amount;
+            left -= amount;
+            used[candidate] += amount;
+            shareFrom.add(candidate);
+            shareTo.add(drill);
+            shareAmount.add(amount);
+        }
+    }
+    
+    /**
+     * Remove extractors whose every share fits in the spare output of other chosen extractors beside the same drill
+     * Later picks hand out the least, so they are tried first
+     */
+    private void dropRedundant(PlanGrid grid, Block extractor, Bitboard occupied) {
+        for (int i = chosen.size - 1; i >= 0; i--) {
+            int candidate = chosen.get(i);
+            int moved = 0;
+            boolean movable = true;
+            
+            // Tentative shares from the other extractors go on the end of the list
+            for (int s = 0; s < shareFrom.size && movable; s++) {
+                if (shareFrom.get(s) != candidate) continue;
+                
+                float left = shareAmount.get(s);
+                int drill = shareTo.get(s);
+                for (int j = 0; j < chosen.size && left > EPSILON; j++) {
+                    int other = chosen.get(j);
+                    if (other == candidate || !reach.get(other).contains(drill)) continue;
+                    
+                    float amount = Math.min(spare(other), left);
+                    if (amount <= EPSILON) continue;
+                    
+                    shareFrom.add(other);
+                    shareTo.add(drill);
+                    shareAmount.add(amount);
+                    used[other] += amount;
+                    moved++;
+                    left -= amount;
+                }
+                movable = left <= EPSILON;
+            }
+            
+            if (!movable) {
+                // Undo the tentative shares, the extractor stays
+                for (int s = shareFrom.size - moved; s < shareFrom.size; s++) {
+                    used[shareFrom.get(s)] -= shareAmount.get(s);
+                }
+                shareFrom.size -= moved;
+                shareTo.size -= moved;
+                shareAmount.size -= moved;
+                continue;
+            }
+            
+            for (int s = shareFrom.size - 1; s >= 0; s--) {
+                if (shareFrom.get(s) != candidate) continue;
+                shareFrom.removeIndex(s);
+                shareTo.removeIndex(s);
+                shareAmount.removeIndex(s);
+            }
+            used[candidate] = 0f;
+            chosen.removeIndex(i);
+            
+            int pos = candidates.get(candidate);
+            DrillUtility.clearDrillArea(grid.tile(Point2.x(pos), Point2.y(pos)), extractor.size, occupied);
+        }
+    }
+    
+    private float spare(int candidate) {
+        return output - used[candidate];
+    }
+    
+    private IntSeq obtain() {
+        IntSeq seq = pool.isEmpty() ? new IntSeq(4) : pool.pop();
+        seq.clear();
+        return seq;
+    }
+    
+    private void clear() {
+        pool.addAll(reach);
+        reach.clear();
+        candidates.clear();
+        candidateIds.clear();
+        chosen.clear();
+        shareFrom.clear();
+        shareTo.clear();
+        shareAmount.clear();
+        underfed = 0;
+        balance = 0f;
+    }
+}
\ No newline at end of file
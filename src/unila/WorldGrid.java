@@ -0,0 +1,69 @@
+package unila;
+
+import mindustry.type.Item;
+import mindustry.world.Block;
+import mindustry.world.Tile;
+import mindustry.world.blocks.production.Drill;
+import static mindustry.Vars.*;
+
+/**
+ * PlanGrid over the loaded world, for the player's team
+ * Buildability comes from the shared placeability mask, queued blocks go to the plan feeder
+ */
+public class WorldGrid implements PlanGrid {
+    
+    @Override
+    public int width() {
+        return world.width();
+    }
+    
+    @Override
+    public int height() {
+        return world.height();
+    }
+    
+    @Override
+    public Tile tile(int x, int y) {
+        return world.tile(x, y);
+    }
+    
+    @Override
+    public Tile tile(int index) {
+        return world.tiles.geti(index);
+    }
+    
+    @Override
+    public int drop(int x, int y) {
+        Tile tile = world.tile(x, y);
+        return tile == null || tile.drop() == null ? -1 : tile.drop().id;
+    }
+    
+    @Override
+    public int mineable(int x, int y, Drill drill) {
+        Tile tile = world.tile(x, y);
+        if (!drill.canMine(tile)) return -1;
+        
+        Item item = drill.getDrop(tile);
+        return item == null ? -1 : item.id;
+    }
+    
+    @Override
+    public boolean buildable(int x, int y) {
+        return DrillUtility.placeMask.isBuildable(x, y);
+    }
+    
+    @Override
+    public boolean placeable(int x, int y) {
+        return inBounds(x, y) && DrillUtility.placeMask.isPlaceable(x, y);
+    }
+    
+    @Override
+    public boolean placeableSpan(int x, int y, int length) {
+        return DrillUtility.placeMask.isPlaceableSpan(x, y, length);
+    }
+    
+    @Override
+    public void queue(int x, int y, int rotation, Block block, Object config) {
+        DrillUtility.queueBuild(x, y, rotation, block, config);
+    }
+}
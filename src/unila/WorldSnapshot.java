@@ -0,0 +1,104 @@
+package unila;
+
+import mindustry.game.Team;
+import mindustry.world.Tile;
+import java.util.Arrays;
+import static mindustry.Vars.*;
+
+/**
+ * Immutable primitive copy of a rectangular world region
+ * Captured on the main thread, then safe to read from planner threads
+ */
+public class WorldSnapshot {
+    public final int originX, originY;
+    public final int width, height;
+    
+    // Ore item id per cell, -1 when there is no ore
+    private final short[] ore;
+    // Static wall cells, one bit per cell
+    private final long[] wall;
+    // Cells the team could build a 1x1 block on, one bit per cell
+    private final long[] placeable;
+    
+    private WorldSnapshot(int originX, int originY, int width, int height) {
+        this.originX = originX;
+        this.originY = originY;
+        this.width = width;
+        this.height = height;
+        this.ore = new short[width * height];
+        this.wall = new long[(width * height + 63) >>> 6];
+        this.placeable = new long[(width * height + 63) >>> 6];
+    }
+    
+    /**
+     * Copy the region [x0, x1] x [y0, y1], clipped to the world
+     * Must be called on the main thread
+     */
+    public static WorldSnapshot capture(int x0, int y0, int x1, int y1, Team team) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, world.width() - 1);
+        y1 = Math.min(y1, world.height() - 1);
+        
+        WorldSnapshot snapshot = new WorldSnapshot(x0, y0, Math.max(x1 - x0 + 1, 0), Math.max(y1 - y0 + 1, 0));
+        Arrays.fill(snapshot.ore, (short)-1);
+        
+        for (int y = 0; y < snapshot.height; y++) {
+            for (int x = 0; x < snapshot.width; x++) {
+                Tile tile = world.tile(x0 + x, y0 + y);
+                int index = x + y * snapshot.width;
+                
+                if (tile.drop() != null) {
+                    snapshot.ore[index] = tile.drop().id;
+                }
+                if (tile.block().isStatic()) {
+                    snapshot.wall[index >>> 6] |= 1L << index;
+                }
+                if (DrillUtility.placeMask.isBuildable(team, tile.x, tile.y) && !DrillUtility.placeMask.isReserved(tile.x, tile.y)) {
+                    snapshot.placeable[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        
+        return snapshot;
+    }
+    
+    public boolean contains(int x, int y) {
+        return x >= originX && y >= originY && x < originX + width && y < originY + height;
+    }
+    
+    /**
+     * Local cell index of a world position, -1 if outside the snapshot
+     */
+    public int index(int x, int y) {
+        return contains(x, y) ? (x - originX) + (y - originY) * width : -1;
+    }
+    
+    public int ore(int index) {
+        return ore[index];
+    }
+    
+    public boolean wall(int index) {
+        return (wall[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    public boolean placeable(int index) {
+        return (placeable[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Copy into a fresh ArrayGrid in local coordinates, walls are unbuildable
+     * Safe on planner threads, the snapshot is never written after capture
+     */
+    public ArrayGrid toGrid() {
+        ArrayGrid grid = new ArrayGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = x + y * width;
+                if (ore[index] != -1) grid.setOre(x, y, content.item(ore[index]));
+                grid.setBuildable(x, y, placeable(index) && !wall(index));
+            }
+        }
+        return grid;
+    }
+}
\ No newline at end of file
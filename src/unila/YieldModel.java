@@ -0,0 +1,85 @@
+package unila;
+
+import mindustry.type.Item;
+import mindustry.world.blocks.production.Drill;
+import static mindustry.Vars.*;
+
+/**
+ * Items per second a drill produces from a given number of ore tiles
+ * Rates come from Drill.getDrillTime, which already includes the item's hardness,
+ * and the liquid boost, which scales both drill speed and warmup so it counts squared
+ * Each drill gets a flat table over (item, ore count, boosted), filled on first use
+ */
+public class YieldModel {
+    // Lookup tables indexed by block id, null until the drill is first asked about
+    // Replaced as a whole when a table is added, so planner threads always see filled tables
+    private static volatile float[][] tables = new float[0][];
+    
+    /**
+     * Items per second for oreCount tiles of the item under the drill
+     */
+    public static float itemsPerSecond(Drill drill, Item item, int oreCount, boolean boosted) {
+        int area = drill.size * drill.size;
+        int count = Math.min(Math.max(oreCount, 0), area);
+        return table(drill)[(item.id * (area + 1) + count) * 2 + (boosted ? 1 : 0)];
+    }
+    
+    /**
+     * Whether planned drills will get water, extractors or pipes are placed for boostable drills
+     */
+    public static boolean isBoosted(Drill drill) {
+        return isBoosted(drill, Config.placeWaterExtractors);
+    }
+    
+    public static boolean isBoosted(Drill drill, boolean placeWater) {
+        return drill.liquidBoostIntensity > 1f && placeWater;
+    }
+    
+    /**
+     * Items per second of a whole plan, scores are ore counts per drill
+     */
+    public static float planYield(Drill drill, Item item, int totalOre, boolean boosted) {
+        // Yield is linear in the ore count, so one full-drill rate scales the total
+        int area = drill.size * drill.size;
+        return itemsPerSecond(drill, item, area, boosted) * totalOre / area;
+    }
+    
+    private static float[] table(Drill drill) {
+        float[][] current = tables;
+        if (drill.id < current.length && current[drill.id] != null) return current[drill.id];
+        return build(drill);
+    }
+    
+    /**
+     * Planner threads read the tables too, so building one is synchronized
+     */
+    private static synchronized float[] build(Drill drill) {
+        float[] table = drill.id < tables.length ? tables[drill.id] : null;
+        if (table == null) {
+            int area = drill.size * drill.size;
+            int itemCount = content.items().size;
+            float boost = drill.liquidBoostIntensity * drill.liquidBoostIntensity;
+            table = new float[itemCount * (area + 1) * 2];
+            
+            for (int id = 0; id < itemCount; id++) {
+                Item item = content.item(id);
+                if (item.hardness > drill.tier) continue;
+                
+                // One item per getDrillTime ticks for every ore tile, 60 ticks per second
+                float perTile = 60f / drill.getDrillTime(item);
+                for (int count = 0; count <= area; count++) {
+                    int index = (id * (area + 1) + count) * 2;
+                    table[index] = perTile * count;
+                    table[index + 1] = perTile * count * boost;
+                }
+            }
+            
+            float[][] grown = new float[Math.max(tables.length, content.blocks().size)][];
+            System.arraycopy(tables, 0, grown, 0, tables.length);
+            grown[drill.id] = table;
+            tables = grown;
+        }
+        
+        return table;
+    }
+}
\ No newline at end of file